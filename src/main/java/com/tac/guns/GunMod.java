@@ -1,10 +1,14 @@
 package com.tac.guns;
 
+import com.tac.guns.config.ClientConfig;
+import com.tac.guns.config.CommonConfig;
 import com.tac.guns.init.ModEntities;
 import com.tac.guns.init.ModItems;
 import com.tac.guns.init.ModSounds;
 import net.minecraftforge.eventbus.api.IEventBus;
+import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.config.ModConfig;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -19,5 +23,7 @@ public class GunMod {
         ModItems.ITEMS.register(bus);
         ModEntities.ENTITY_TYPES.register(bus);
         ModSounds.SOUNDS.register(bus);
+        ModLoadingContext.get().registerConfig(ModConfig.Type.COMMON, CommonConfig.init());
+        ModLoadingContext.get().registerConfig(ModConfig.Type.CLIENT, ClientConfig.init());
     }
 }
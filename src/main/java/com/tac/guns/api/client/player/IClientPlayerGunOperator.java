@@ -6,6 +6,11 @@ import net.minecraft.client.player.LocalPlayer;
 public interface IClientPlayerGunOperator {
     ShootResult shoot();
 
+    /**
+     * 执行已经到时间的开火效果，每一帧在渲染线程调用
+     */
+    void updateShoot();
+
     void draw();
 
     void reload();
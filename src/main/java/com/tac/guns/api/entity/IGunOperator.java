@@ -20,7 +20,48 @@ public interface IGunOperator {
      * @param yaw          开火方向的偏航角(即 yRot )
      * @return 本次射击的结果
      */
-    ShootResult shoot(ItemStack gunItemStack, float pitch, float yaw);
+    default ShootResult shoot(ItemStack gunItemStack, float pitch, float yaw) {
+        return shoot(gunItemStack, pitch, yaw, 0);
+    }
+
+    /**
+     * 从实体的位置，向指定的方向开枪，命中判定回退到 rewindTicks 个 tick 之前的实体位置
+     *
+     * @param gunItemStack 枪物品
+     * @param pitch        开火方向的俯仰角(即 xRot )
+     * @param yaw          开火方向的偏航角(即 yRot )
+     * @param rewindTicks  命中判定回退的 tick 数
+     * @return 本次射击的结果
+     */
+    default ShootResult shoot(ItemStack gunItemStack, float pitch, float yaw, int rewindTicks) {
+        return shoot(gunItemStack, pitch, yaw, rewindTicks, System.currentTimeMillis());
+    }
+
+    /**
+     * 从实体的位置，向指定的方向开枪，射击冷却按 timestamp 计算
+     *
+     * @param gunItemStack 枪物品
+     * @param pitch        开火方向的俯仰角(即 xRot )
+     * @param yaw          开火方向的偏航角(即 yRot )
+     * @param rewindTicks  命中判定回退的 tick 数
+     * @param timestamp    本次开火的时间，以服务端的 System.currentTimeMillis 计
+     * @return 本次射击的结果
+     */
+    ShootResult shoot(ItemStack gunItemStack, float pitch, float yaw, int rewindTicks, long timestamp);
+
+    /**
+     * 处理客户端发来的开火。序号不大于已处理序号的开火会被忽略，
+     * 客户端的开火时间换算为服务端时间后再判断射击冷却，网络抖动导致开火扎堆到达时不会被误判为冷却中
+     *
+     * @param gunItemStack    枪物品
+     * @param pitch           开火方向的俯仰角(即 xRot )
+     * @param yaw             开火方向的偏航角(即 yRot )
+     * @param rewindTicks     命中判定回退的 tick 数
+     * @param sequence        客户端开火的序号，每次开火加一
+     * @param clientTimestamp 客户端开火的时间，毫秒，只有相对值有意义
+     * @return 本次射击的结果
+     */
+    ShootResult shootFromClient(ItemStack gunItemStack, float pitch, float yaw, int rewindTicks, int sequence, long clientTimestamp);
 
     static IGunOperator fromLivingEntity(LivingEntity entity) {
         return (IGunOperator) entity;
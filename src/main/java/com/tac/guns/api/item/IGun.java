@@ -29,7 +29,20 @@ public interface IGun {
      * @param pitch   射击的俯仰角(即 xRot )
      * @param yaw     射击的偏航角(即 yRot )
      */
-    void shoot(LivingEntity shooter, ItemStack gun, float pitch, float yaw);
+    default void shoot(LivingEntity shooter, ItemStack gun, float pitch, float yaw) {
+        shoot(shooter, gun, pitch, yaw, 0);
+    }
+
+    /**
+     * 枪械射击，命中判定回退到 rewindTicks 个 tick 之前的实体位置，该方法只在服务端调用
+     *
+     * @param shooter     射手
+     * @param gun         枪
+     * @param pitch       射击的俯仰角(即 xRot )
+     * @param yaw         射击的偏航角(即 yRot )
+     * @param rewindTicks 命中判定回退的 tick 数
+     */
+    void shoot(LivingEntity shooter, ItemStack gun, float pitch, float yaw, int rewindTicks);
 
     /**
      * 获取开火模式
@@ -0,0 +1,409 @@
+package com.tac.guns.ballistic;
+
+import com.google.common.collect.Maps;
+import com.tac.guns.api.item.IGun;
+import com.tac.guns.config.CommonConfig;
+import com.tac.guns.resource.pojo.data.GunBulletData;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
+import net.minecraft.world.damagesource.DamageSource;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.level.ClipContext;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.BlockHitResult;
+import net.minecraft.world.phys.HitResult;
+import net.minecraft.world.phys.Vec3;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 一个世界内全部模拟子弹的弹道。子弹不是实体，没有追踪和生成数据包，所有子弹的状态以结构数组的形式存放，
+ * 每个 tick 由 {@link #tick()} 统一推进一次：
+ * <ol>
+ *     <li>逐颗子弹检测方块碰撞，确定本 tick 的弹道线段</li>
+ *     <li>按区域把弹道分组，每组查询一次附近的实体，构建实体网格</li>
+ *     <li>逐颗子弹只查询弹道穿过的格子，记录命中</li>
+ *     <li>统一结算伤害和穿透，再移动或移除子弹</li>
+ * </ol>
+ * 每 tick 的开销与子弹数量和弹道附近的实体密度相关，不会遍历整个世界的实体。
+ * <p>
+ * 开启延迟补偿时，每颗子弹带有回退的 tick 数，与实体的命中判定使用 {@link HitboxHistory} 中回退后的碰撞箱，
+ * 方块碰撞仍然使用当前的世界。碰撞箱只在有玩家持枪时记录，并且只记录持枪玩家附近的生物。
+ * 世界中没有子弹、也没有玩家持枪时，不会为这个世界创建模拟。
+ * <p>
+ * 只在服务端主线程中使用
+ */
+public class BulletSimulation {
+    /**
+     * 子弹的碰撞半径，与 EntityBullet 的碰撞箱大小一致
+     */
+    private static final double BULLET_RADIUS = 0.125;
+    /**
+     * 记录碰撞箱的范围，与生物的最大追踪距离一致。更远的生物不会出现在射手的客户端上，没有需要回退的位置
+     */
+    private static final double HISTORY_RANGE = 128;
+    /**
+     * 子弹分组的区域边长，单位为格
+     */
+    private static final double CLUSTER_SIZE = 32;
+    private static final Map<ServerLevel, BulletSimulation> SIMULATIONS = Maps.newHashMap();
+
+    private final ServerLevel level;
+    /**
+     * 生物碰撞箱的历史记录，关闭延迟补偿时为空
+     */
+    @Nullable
+    private final HitboxHistory history;
+    private int size = 0;
+    private double[] posX = new double[64];
+    private double[] posY = new double[64];
+    private double[] posZ = new double[64];
+    private double[] velX = new double[64];
+    private double[] velY = new double[64];
+    private double[] velZ = new double[64];
+    private float[] gravity = new float[64];
+    private float[] damage = new float[64];
+    private int[] penetration = new int[64];
+    private int[] age = new int[64];
+    private int[] life = new int[64];
+    private Entity[] shooter = new Entity[64];
+    private int[] rewind = new int[64];
+    /**
+     * 本 tick 弹道的终点，以及弹道是否被方块截断
+     */
+    private double[] endX = new double[64];
+    private double[] endY = new double[64];
+    private double[] endZ = new double[64];
+    private boolean[] hitBlock = new boolean[64];
+    private final EntityGrid grid = new EntityGrid();
+    /**
+     * 本 tick 每个分组内弹道的包围范围
+     */
+    private final Long2ObjectOpenHashMap<AABB> clusters = new Long2ObjectOpenHashMap<>();
+    /**
+     * 本 tick 的全部命中，按子弹分组，组内按距离从近到远排列
+     */
+    private final IntArrayList hitBullets = new IntArrayList();
+    private final List<Entity> hitTargets = new ArrayList<>();
+    /**
+     * 一颗子弹的候选实体和命中距离，查询时复用
+     */
+    private final List<Entity> candidates = new ArrayList<>();
+    private final List<Entity> bulletHits = new ArrayList<>();
+    private final DoubleArrayList bulletHitDistances = new DoubleArrayList();
+
+    private BulletSimulation(ServerLevel level) {
+        this.level = level;
+        int maxRewindTicks = CommonConfig.MAX_REWIND_TICKS.get();
+        this.history = maxRewindTicks > 0 ? new HitboxHistory(maxRewindTicks + 1) : null;
+    }
+
+    public static BulletSimulation get(ServerLevel level) {
+        return SIMULATIONS.computeIfAbsent(level, BulletSimulation::new);
+    }
+
+    /**
+     * 记录生物的碰撞箱并推进世界中的子弹，每个世界 tick 结束时调用。
+     * 没有子弹、也没有玩家持枪的世界直接跳过，已有的模拟也会被丢弃
+     */
+    public static void tick(ServerLevel level) {
+        BulletSimulation simulation = SIMULATIONS.get(level);
+        boolean armed = hasArmedPlayer(level);
+        if (simulation == null) {
+            if (!armed || CommonConfig.MAX_REWIND_TICKS.get() <= 0) {
+                return;
+            }
+            simulation = get(level);
+        }
+        simulation.tick(armed);
+        if (simulation.size == 0 && !armed) {
+            SIMULATIONS.remove(level);
+        }
+    }
+
+    /**
+     * 获取实体在 rewindTicks 个 tick 之前的碰撞箱，没有对应的记录时返回当前的碰撞箱
+     */
+    public static AABB getRewoundBoundingBox(ServerLevel level, Entity entity, int rewindTicks) {
+        BulletSimulation simulation = SIMULATIONS.get(level);
+        if (rewindTicks <= 0 || simulation == null || simulation.history == null) {
+            return entity.getBoundingBox();
+        }
+        int rewind = Math.min(rewindTicks, simulation.history.getMaxRewindTicks());
+        return simulation.history.getBoundingBox(entity, level.getGameTime() - rewind);
+    }
+
+    /**
+     * 世界卸载时丢弃其中的子弹
+     */
+    public static void remove(ServerLevel level) {
+        SIMULATIONS.remove(level);
+    }
+
+    /**
+     * 从射手的眼睛位置，向指定的方向发射一颗子弹
+     *
+     * @param pitch       射击的俯仰角(即 xRot )
+     * @param yaw         射击的偏航角(即 yRot )
+     * @param rewindTicks 命中判定回退的 tick 数，超出记录范围时按最大值处理
+     */
+    public void spawn(LivingEntity shooter, float pitch, float yaw, GunBulletData data, int rewindTicks) {
+        ensureCapacity(size + 1);
+        int i = size++;
+        Vec3 eye = shooter.getEyePosition();
+        float speed = data.getSpeed();
+        posX[i] = eye.x;
+        posY[i] = eye.y - 0.1;
+        posZ[i] = eye.z;
+        // 与 Projectile#shootFromRotation 的方向计算一致
+        float pitchRad = pitch * ((float) Math.PI / 180F);
+        float yawRad = yaw * ((float) Math.PI / 180F);
+        velX[i] = -Mth.sin(yawRad) * Mth.cos(pitchRad) * speed;
+        velY[i] = -Mth.sin(pitchRad) * speed;
+        velZ[i] = Mth.cos(yawRad) * Mth.cos(pitchRad) * speed;
+        gravity[i] = data.getGravity();
+        damage[i] = data.getDamage();
+        penetration[i] = data.getPenetration();
+        age[i] = 0;
+        life[i] = data.getLife();
+        this.shooter[i] = shooter;
+        rewind[i] = history == null ? 0 : Mth.clamp(rewindTicks, 0, history.getMaxRewindTicks());
+        // 在结算伤害时生成的子弹会随本 tick 的其他子弹一起移动，弹道终点先取为当前位置
+        endX[i] = posX[i];
+        endY[i] = posY[i];
+        endZ[i] = posZ[i];
+        hitBlock[i] = false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void tick(boolean armed) {
+        long now = level.getGameTime();
+        if (history != null && armed) {
+            recordHistory(now);
+        }
+        if (size == 0) {
+            return;
+        }
+        sweepBlocks();
+        buildGrid(now);
+        collectHits(now);
+        grid.clear();
+        applyHits();
+        int i = 0;
+        while (i < size) {
+            if (advance(i)) {
+                i++;
+            } else {
+                removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * 记录持枪玩家附近生物的碰撞箱。多名玩家的范围重叠时，同一个生物只记录一次
+     */
+    private void recordHistory(long now) {
+        for (ServerPlayer player : level.players()) {
+            if (player.isSpectator() || !IGun.mainhandHoldGun(player)) {
+                continue;
+            }
+            history.record(player, now);
+            for (Entity entity : level.getEntities(player, player.getBoundingBox().inflate(HISTORY_RANGE), entity -> entity instanceof LivingEntity)) {
+                history.record(entity, now);
+            }
+        }
+        history.removeStale(now);
+    }
+
+    private static boolean hasArmedPlayer(ServerLevel level) {
+        for (ServerPlayer player : level.players()) {
+            if (!player.isSpectator() && IGun.mainhandHoldGun(player)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 检测每颗子弹本 tick 的方块碰撞，命中方块时截断弹道
+     */
+    private void sweepBlocks() {
+        for (int i = 0; i < size; i++) {
+            Vec3 start = new Vec3(posX[i], posY[i], posZ[i]);
+            Vec3 end = new Vec3(posX[i] + velX[i], posY[i] + velY[i], posZ[i] + velZ[i]);
+            BlockHitResult blockHit = level.clip(new ClipContext(start, end, ClipContext.Block.COLLIDER, ClipContext.Fluid.NONE, shooter[i]));
+            hitBlock[i] = blockHit.getType() != HitResult.Type.MISS;
+            if (hitBlock[i]) {
+                end = blockHit.getLocation();
+            }
+            endX[i] = end.x;
+            endY[i] = end.y;
+            endZ[i] = end.z;
+        }
+    }
+
+    /**
+     * 按弹道起点所在的区域把子弹分组，每组的弹道范围用一次分区索引的实体查询取得附近的实体，放入实体网格。
+     * 相距很远的子弹不会合并成一个覆盖大片世界的查询范围
+     */
+    private void buildGrid(long now) {
+        grid.clear();
+        clusters.clear();
+        int maxRewind = 0;
+        for (int i = 0; i < size; i++) {
+            maxRewind = Math.max(maxRewind, rewind[i]);
+            AABB segment = new AABB(posX[i], posY[i], posZ[i], endX[i], endY[i], endZ[i]).inflate(BULLET_RADIUS);
+            long key = SectionPos.asLong(cluster(posX[i]), cluster(posY[i]), cluster(posZ[i]));
+            AABB bounds = clusters.get(key);
+            clusters.put(key, bounds == null ? segment : bounds.minmax(segment));
+        }
+        // 需要回退时，实体以回退范围内全部位置的包围盒放入网格，查询范围按每 tick 最多移动 1 格扩大
+        long fromTick = now - maxRewind;
+        Function<Entity, AABB> boxes = maxRewind == 0 || history == null
+                ? entity -> entity.getBoundingBox().inflate(BULLET_RADIUS)
+                : entity -> history.getSweptBoundingBox(entity, fromTick, now).inflate(BULLET_RADIUS);
+        for (AABB bounds : clusters.values()) {
+            grid.add(level.getEntities((Entity) null, bounds.inflate(maxRewind), BulletSimulation::canHit), bounds, boxes);
+        }
+    }
+
+    private static int cluster(double coordinate) {
+        return Mth.floor(coordinate / CLUSTER_SIZE);
+    }
+
+    /**
+     * 用实体网格找出每颗子弹本 tick 命中的实体，此时不造成伤害
+     */
+    private void collectHits(long now) {
+        hitBullets.clear();
+        hitTargets.clear();
+        for (int i = 0; i < size; i++) {
+            Vec3 start = new Vec3(posX[i], posY[i], posZ[i]);
+            Vec3 end = new Vec3(endX[i], endY[i], endZ[i]);
+            candidates.clear();
+            bulletHits.clear();
+            bulletHitDistances.clear();
+            grid.query(start, end, candidates);
+            for (Entity entity : candidates) {
+                if (entity == shooter[i]) {
+                    continue;
+                }
+                AABB box = rewind[i] == 0 || history == null ? entity.getBoundingBox() : history.getBoundingBox(entity, now - rewind[i]);
+                Optional<Vec3> hit = box.inflate(BULLET_RADIUS).clip(start, end);
+                if (hit.isPresent()) {
+                    double distance = start.distanceToSqr(hit.get());
+                    int index = 0;
+                    while (index < bulletHitDistances.size() && bulletHitDistances.getDouble(index) < distance) {
+                        index++;
+                    }
+                    bulletHits.add(index, entity);
+                    bulletHitDistances.add(index, distance);
+                }
+            }
+            // 穿透次数之外的命中不会生效，不需要记录
+            int count = Math.min(bulletHits.size(), penetration[i] + 1);
+            for (int j = 0; j < count; j++) {
+                hitBullets.add(i);
+                hitTargets.add(bulletHits.get(j));
+            }
+        }
+    }
+
+    /**
+     * 统一结算本 tick 的全部命中
+     */
+    private void applyHits() {
+        for (int h = 0; h < hitBullets.size(); h++) {
+            int i = hitBullets.getInt(h);
+            Entity target = hitTargets.get(h);
+            // 同一 tick 内先结算的子弹可能已经击杀了目标
+            if (target.isAlive() && target instanceof LivingEntity livingEntity) {
+                livingEntity.hurt(DamageSource.thrown(shooter[i], shooter[i]), damage[i]);
+            }
+            penetration[i]--;
+        }
+        hitTargets.clear();
+    }
+
+    /**
+     * 移动一颗子弹到本 tick 弹道的终点
+     *
+     * @return 子弹是否仍然存活
+     */
+    private boolean advance(int i) {
+        if (penetration[i] < 0 || hitBlock[i] || ++age[i] > life[i]) {
+            return false;
+        }
+        posX[i] = endX[i];
+        posY[i] = endY[i];
+        posZ[i] = endZ[i];
+        velY[i] -= gravity[i];
+        return true;
+    }
+
+    private static boolean canHit(Entity entity) {
+        return entity.isAlive() && entity.isPickable() && !entity.isSpectator();
+    }
+
+    private void removeAt(int i) {
+        int last = --size;
+        // 用最后一颗子弹填补空位，保持数组紧凑
+        posX[i] = posX[last];
+        posY[i] = posY[last];
+        posZ[i] = posZ[last];
+        velX[i] = velX[last];
+        velY[i] = velY[last];
+        velZ[i] = velZ[last];
+        gravity[i] = gravity[last];
+        damage[i] = damage[last];
+        penetration[i] = penetration[last];
+        age[i] = age[last];
+        life[i] = life[last];
+        shooter[i] = shooter[last];
+        shooter[last] = null;
+        rewind[i] = rewind[last];
+        endX[i] = endX[last];
+        endY[i] = endY[last];
+        endZ[i] = endZ[last];
+        hitBlock[i] = hitBlock[last];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= posX.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, posX.length * 2);
+        posX = Arrays.copyOf(posX, newCapacity);
+        posY = Arrays.copyOf(posY, newCapacity);
+        posZ = Arrays.copyOf(posZ, newCapacity);
+        velX = Arrays.copyOf(velX, newCapacity);
+        velY = Arrays.copyOf(velY, newCapacity);
+        velZ = Arrays.copyOf(velZ, newCapacity);
+        gravity = Arrays.copyOf(gravity, newCapacity);
+        damage = Arrays.copyOf(damage, newCapacity);
+        penetration = Arrays.copyOf(penetration, newCapacity);
+        age = Arrays.copyOf(age, newCapacity);
+        life = Arrays.copyOf(life, newCapacity);
+        shooter = Arrays.copyOf(shooter, newCapacity);
+        rewind = Arrays.copyOf(rewind, newCapacity);
+        endX = Arrays.copyOf(endX, newCapacity);
+        endY = Arrays.copyOf(endY, newCapacity);
+        endZ = Arrays.copyOf(endZ, newCapacity);
+        hitBlock = Arrays.copyOf(hitBlock, newCapacity);
+    }
+}
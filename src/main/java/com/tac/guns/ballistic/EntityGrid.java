@@ -0,0 +1,144 @@
+package com.tac.guns.ballistic;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.SectionPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 均匀网格划分的实体索引，每个 tick 清空后重新放入实体，供这个 tick 内的全部子弹查询弹道附近的实体。
+ * 一个实体的碰撞箱跨越多个格子时，会被放入每一个格子，因此查询时只需要遍历弹道穿过的格子
+ */
+public class EntityGrid {
+    /**
+     * 格子的边长，单位为格
+     */
+    private static final double CELL_SIZE = 4;
+
+    private final Long2ObjectOpenHashMap<IntArrayList> cells = new Long2ObjectOpenHashMap<>();
+    /**
+     * 清空网格时回收的格子列表，下一次构建时复用
+     */
+    private final ArrayDeque<IntArrayList> freeCells = new ArrayDeque<>();
+    private final List<Entity> entities = new ArrayList<>();
+    private final IntOpenHashSet added = new IntOpenHashSet();
+    /**
+     * 记录每个实体最后一次被哪一次查询访问过，避免跨越多个格子的实体被重复返回
+     */
+    private int[] visited = new int[64];
+    private int queryStamp = 0;
+
+    /**
+     * 把 bounds 范围内的实体放入网格，可以对多个范围分别调用，已经放入的实体会被跳过
+     *
+     * @param boxes 实体放入网格时使用的范围，应当包含实体可能被命中的全部位置，并扩大子弹的碰撞半径
+     */
+    public void add(Iterable<Entity> candidates, AABB bounds, Function<Entity, AABB> boxes) {
+        for (Entity entity : candidates) {
+            if (added.contains(entity.getId())) {
+                continue;
+            }
+            AABB box = boxes.apply(entity);
+            if (!box.intersects(bounds)) {
+                continue;
+            }
+            added.add(entity.getId());
+            int index = entities.size();
+            entities.add(entity);
+            int minX = cell(box.minX), minY = cell(box.minY), minZ = cell(box.minZ);
+            int maxX = cell(box.maxX), maxY = cell(box.maxY), maxZ = cell(box.maxZ);
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        long key = SectionPos.asLong(x, y, z);
+                        IntArrayList cell = cells.get(key);
+                        if (cell == null) {
+                            cell = freeCells.isEmpty() ? new IntArrayList() : freeCells.poll();
+                            cells.put(key, cell);
+                        }
+                        cell.add(index);
+                    }
+                }
+            }
+        }
+        if (visited.length < entities.size()) {
+            visited = new int[Math.max(entities.size(), visited.length * 2)];
+        }
+        Arrays.fill(visited, 0, entities.size(), 0);
+        queryStamp = 0;
+    }
+
+    /**
+     * 把 start 到 end 的线段穿过的格子中的实体加入 result，每个实体只会加入一次
+     */
+    public void query(Vec3 start, Vec3 end, List<Entity> result) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        int stamp = ++queryStamp;
+        double sx = start.x / CELL_SIZE, sy = start.y / CELL_SIZE, sz = start.z / CELL_SIZE;
+        double dx = end.x / CELL_SIZE - sx, dy = end.y / CELL_SIZE - sy, dz = end.z / CELL_SIZE - sz;
+        int x = Mth.floor(sx), y = Mth.floor(sy), z = Mth.floor(sz);
+        int steps = Math.abs(cell(end.x) - x) + Math.abs(cell(end.y) - y) + Math.abs(cell(end.z) - z);
+        // 三维 DDA：每一步走到下一个最先穿过边界的格子
+        int stepX = (int) Math.signum(dx), stepY = (int) Math.signum(dy), stepZ = (int) Math.signum(dz);
+        double deltaX = stepX == 0 ? Double.MAX_VALUE : Math.abs(1 / dx);
+        double deltaY = stepY == 0 ? Double.MAX_VALUE : Math.abs(1 / dy);
+        double deltaZ = stepZ == 0 ? Double.MAX_VALUE : Math.abs(1 / dz);
+        double maxX = stepX == 0 ? Double.MAX_VALUE : (stepX > 0 ? x + 1 - sx : sx - x) * deltaX;
+        double maxY = stepY == 0 ? Double.MAX_VALUE : (stepY > 0 ? y + 1 - sy : sy - y) * deltaY;
+        double maxZ = stepZ == 0 ? Double.MAX_VALUE : (stepZ > 0 ? z + 1 - sz : sz - z) * deltaZ;
+        visit(x, y, z, stamp, result);
+        for (int i = 0; i < steps; i++) {
+            if (maxX < maxY && maxX < maxZ) {
+                x += stepX;
+                maxX += deltaX;
+            } else if (maxY < maxZ) {
+                y += stepY;
+                maxY += deltaY;
+            } else {
+                z += stepZ;
+                maxZ += deltaZ;
+            }
+            visit(x, y, z, stamp, result);
+        }
+    }
+
+    private void visit(int x, int y, int z, int stamp, List<Entity> result) {
+        IntArrayList cell = cells.get(SectionPos.asLong(x, y, z));
+        if (cell == null) {
+            return;
+        }
+        for (int i = 0; i < cell.size(); i++) {
+            int index = cell.getInt(i);
+            if (visited[index] != stamp) {
+                visited[index] = stamp;
+                result.add(entities.get(index));
+            }
+        }
+    }
+
+    public void clear() {
+        for (IntArrayList cell : cells.values()) {
+            cell.clear();
+            freeCells.add(cell);
+        }
+        cells.clear();
+        entities.clear();
+        added.clear();
+    }
+
+    private static int cell(double coordinate) {
+        return Mth.floor(coordinate / CELL_SIZE);
+    }
+}
@@ -0,0 +1,154 @@
+package com.tac.guns.ballistic;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.phys.AABB;
+
+import java.util.Arrays;
+
+/**
+ * 记录一个世界内生物最近若干 tick 的碰撞箱，用于把命中判定回退到开火玩家看到的时刻。
+ * <p>
+ * 每个生物占用一个槽位，槽位内是长度为 length 的环形缓冲，按 tick 取模存放。
+ * 每个采样只保存脚底坐标、半宽和高度，全部数据存放在基本类型数组中，内存占用为 生物数量 × length × 32 字节
+ */
+public class HitboxHistory {
+    private final int length;
+    private final Int2IntOpenHashMap slots = new Int2IntOpenHashMap();
+    private final IntArrayList freeSlots = new IntArrayList();
+    private int slotCount = 0;
+    private long[] sampleTick;
+    private double[] x;
+    private double[] y;
+    private double[] z;
+    private float[] halfWidth;
+    private float[] height;
+    /**
+     * 每个槽位最后一次记录的 tick，用于回收已经消失的生物的槽位
+     */
+    private long[] lastTick = new long[16];
+
+    /**
+     * @param length 每个生物保留的采样数量，即最多可以回退 length - 1 个 tick
+     */
+    public HitboxHistory(int length) {
+        this.length = length;
+        this.sampleTick = new long[16 * length];
+        this.x = new double[16 * length];
+        this.y = new double[16 * length];
+        this.z = new double[16 * length];
+        this.halfWidth = new float[16 * length];
+        this.height = new float[16 * length];
+        slots.defaultReturnValue(-1);
+    }
+
+    public int getMaxRewindTicks() {
+        return length - 1;
+    }
+
+    /**
+     * 记录生物在 tick 时的碰撞箱，同一 tick 内重复记录同一个生物时直接跳过
+     */
+    public void record(Entity entity, long tick) {
+        if (!(entity instanceof LivingEntity) || !entity.isAlive()) {
+            return;
+        }
+        int slot = slots.get(entity.getId());
+        if (slot < 0) {
+            slot = allocate();
+            slots.put(entity.getId(), slot);
+            // 新的槽位可能留有其他生物的采样
+            Arrays.fill(sampleTick, slot * length, (slot + 1) * length, Long.MIN_VALUE);
+        } else if (lastTick[slot] == tick) {
+            return;
+        }
+        int index = slot * length + (int) Math.floorMod(tick, (long) length);
+        AABB box = entity.getBoundingBox();
+        sampleTick[index] = tick;
+        x[index] = (box.minX + box.maxX) / 2;
+        y[index] = box.minY;
+        z[index] = (box.minZ + box.maxZ) / 2;
+        halfWidth[index] = (float) ((box.maxX - box.minX) / 2);
+        height[index] = (float) (box.maxY - box.minY);
+        lastTick[slot] = tick;
+    }
+
+    /**
+     * 回收 tick 时没有记录到的生物的槽位，每个 tick 记录完成后调用一次
+     */
+    public void removeStale(long tick) {
+        ObjectIterator<Int2IntMap.Entry> iterator = slots.int2IntEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            int slot = iterator.next().getIntValue();
+            if (lastTick[slot] != tick) {
+                iterator.remove();
+                freeSlots.add(slot);
+            }
+        }
+    }
+
+    /**
+     * 获取生物在 tick 时的碰撞箱，没有这一 tick 的记录时返回当前的碰撞箱
+     */
+    public AABB getBoundingBox(Entity entity, long tick) {
+        int index = indexOf(entity, tick);
+        if (index < 0) {
+            return entity.getBoundingBox();
+        }
+        return new AABB(x[index] - halfWidth[index], y[index], z[index] - halfWidth[index],
+                x[index] + halfWidth[index], y[index] + height[index], z[index] + halfWidth[index]);
+    }
+
+    /**
+     * 获取生物在 fromTick 到 toTick 之间全部碰撞箱的包围盒，包括当前的碰撞箱
+     */
+    public AABB getSweptBoundingBox(Entity entity, long fromTick, long toTick) {
+        AABB current = entity.getBoundingBox();
+        double minX = current.minX, minY = current.minY, minZ = current.minZ;
+        double maxX = current.maxX, maxY = current.maxY, maxZ = current.maxZ;
+        for (long tick = Math.max(fromTick, toTick - length + 1); tick <= toTick; tick++) {
+            int index = indexOf(entity, tick);
+            if (index < 0) {
+                continue;
+            }
+            minX = Math.min(minX, x[index] - halfWidth[index]);
+            minY = Math.min(minY, y[index]);
+            minZ = Math.min(minZ, z[index] - halfWidth[index]);
+            maxX = Math.max(maxX, x[index] + halfWidth[index]);
+            maxY = Math.max(maxY, y[index] + height[index]);
+            maxZ = Math.max(maxZ, z[index] + halfWidth[index]);
+        }
+        return new AABB(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    private int indexOf(Entity entity, long tick) {
+        int slot = slots.get(entity.getId());
+        if (slot < 0) {
+            return -1;
+        }
+        int index = slot * length + (int) Math.floorMod(tick, (long) length);
+        return sampleTick[index] == tick ? index : -1;
+    }
+
+    private int allocate() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.popInt();
+        }
+        int slot = slotCount++;
+        if (slot >= lastTick.length) {
+            int capacity = lastTick.length * 2;
+            lastTick = Arrays.copyOf(lastTick, capacity);
+            sampleTick = Arrays.copyOf(sampleTick, capacity * length);
+            x = Arrays.copyOf(x, capacity * length);
+            y = Arrays.copyOf(y, capacity * length);
+            z = Arrays.copyOf(z, capacity * length);
+            halfWidth = Arrays.copyOf(halfWidth, capacity * length);
+            height = Arrays.copyOf(height, capacity * length);
+        }
+        return slot;
+    }
+}
@@ -5,10 +5,27 @@ import com.tac.guns.client.animation.interpolator.Interpolator;
 public class AnimationChannelContent {
     public float[] keyframeTimeS;
     /**
-     * The values. Each element of this array corresponds to one key frame time,
-     * can be value of translation, rotation or scale
+     * The values of all key frames in one flat array, the value of key frame {@code i} starts at {@code i * stride}.
+     * A value can be translation, rotation or scale.
+     * For cubic spline channels each key frame stores in-tangent, value and out-tangent, so the stride is {@code 3 * width}.
      */
-    public float[][] values;
+    public float[] values;
+    /**
+     * Number of components of a value, 3 for translation and scale, 4 for rotation
+     */
+    public int width;
+    /**
+     * Whether the rotation values have been rounded to 48-bit smallest-three quaternions,
+     * such values are stored in quantized form by {@link AnimationSerializer}
+     */
+    public boolean quantized;
 
     public Interpolator interpolator;
+
+    /**
+     * Number of floats between the values of two adjacent key frames
+     */
+    public int getStride() {
+        return keyframeTimeS.length == 0 ? width : values.length / keyframeTimeS.length;
+    }
 }
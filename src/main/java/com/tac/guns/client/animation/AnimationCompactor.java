@@ -0,0 +1,201 @@
+package com.tac.guns.client.animation;
+
+import com.tac.guns.client.animation.interpolator.InterpolatorUtil;
+
+import java.util.List;
+
+/**
+ * Load time compaction of decoded animation channels.
+ * <p>
+ * Exported animations often contain baked key frames that the interpolation between their neighbours already reproduces.
+ * Such key frames are removed when the error stays within a tolerance.
+ * Rotation channels can also be rounded to 48-bit smallest-three quaternions: the largest component is dropped and
+ * the other three are stored in 15 bits each, which {@link AnimationSerializer} writes as 6 bytes instead of 16.
+ */
+public final class AnimationCompactor {
+    /**
+     * The smaller three components of a unit quaternion are within [-1/sqrt(2), 1/sqrt(2)]
+     */
+    private static final float QUANTIZE_RANGE = (float) (1 / Math.sqrt(2));
+    private static final int QUANTIZE_BITS = 15;
+    private static final int QUANTIZE_MAX = (1 << QUANTIZE_BITS) - 1;
+
+    private AnimationCompactor() {
+    }
+
+    /**
+     * Compact all channels of an animation prototype in place. Must be called before the prototype is shared.
+     *
+     * @param tolerance The maximum error of a removed key frame, 0 to keep all key frames
+     * @param quantize  Whether to round rotation channels to smallest-three quaternions
+     * @return The statistics of the compaction
+     */
+    public static Report compact(ObjectAnimation animation, float tolerance, boolean quantize) {
+        int keyframesBefore = 0;
+        int keyframesAfter = 0;
+        long bytesBefore = 0;
+        long bytesAfter = 0;
+        for (List<ObjectAnimationChannel> channels : animation.getChannels().values()) {
+            for (ObjectAnimationChannel channel : channels) {
+                AnimationChannelContent content = channel.content;
+                int stride = content.getStride();
+                keyframesBefore += content.keyframeTimeS.length;
+                // Before compaction each key frame value was a separate float array
+                bytesBefore += arrayBytes(content.keyframeTimeS.length, Integer.BYTES)
+                        + (long) content.keyframeTimeS.length * arrayBytes(stride, Float.BYTES)
+                        + arrayBytes(content.keyframeTimeS.length, Float.BYTES);
+                compactChannel(channel, tolerance, quantize);
+                keyframesAfter += content.keyframeTimeS.length;
+                bytesAfter += arrayBytes(content.values.length, Float.BYTES)
+                        + arrayBytes(content.keyframeTimeS.length, Float.BYTES);
+            }
+        }
+        return new Report(animation.name, keyframesBefore, keyframesAfter, bytesBefore, bytesAfter);
+    }
+
+    private static void compactChannel(ObjectAnimationChannel channel, float tolerance, boolean quantize) {
+        AnimationChannelContent content = channel.content;
+        // Spline key frames carry tangents, removing or rounding them would change the curve
+        if (content.interpolator.getType() == InterpolatorUtil.InterpolatorType.SPLINE) {
+            return;
+        }
+        if (quantize && channel.type == ObjectAnimationChannel.ChannelType.ROTATION && content.width == 4 && content.getStride() == 4) {
+            for (int offset = 0; offset < content.values.length; offset += 4) {
+                dequantizeRotation(quantizeRotation(content.values, offset), content.values, offset);
+            }
+            content.quantized = true;
+        }
+        if (tolerance > 0 && content.keyframeTimeS.length > 2) {
+            removeKeyframes(channel, tolerance);
+        }
+        content.interpolator.compile(channel);
+    }
+
+    /**
+     * Greedily extend each segment as long as every skipped key frame is reproduced by interpolating the segment ends
+     */
+    private static void removeKeyframes(ObjectAnimationChannel channel, float tolerance) {
+        AnimationChannelContent content = channel.content;
+        int count = content.keyframeTimeS.length;
+        int width = content.width;
+        boolean rotation = channel.type == ObjectAnimationChannel.ChannelType.ROTATION;
+        float[] scratch = new float[width];
+        int[] kept = new int[count];
+        int keptCount = 0;
+        kept[keptCount++] = 0;
+        int anchor = 0;
+        for (int i = 1; i < count - 1; i++) {
+            if (!reproduces(content, anchor, i + 1, tolerance, rotation, scratch)) {
+                kept[keptCount++] = i;
+                anchor = i;
+            }
+        }
+        kept[keptCount++] = count - 1;
+        if (keptCount == count) {
+            return;
+        }
+        float[] keyframeTimeS = new float[keptCount];
+        float[] values = new float[keptCount * width];
+        for (int i = 0; i < keptCount; i++) {
+            keyframeTimeS[i] = content.keyframeTimeS[kept[i]];
+            System.arraycopy(content.values, kept[i] * width, values, i * width, width);
+        }
+        content.keyframeTimeS = keyframeTimeS;
+        content.values = values;
+    }
+
+    private static boolean reproduces(AnimationChannelContent content, int from, int to, float tolerance, boolean rotation, float[] scratch) {
+        float[] times = content.keyframeTimeS;
+        float[] values = content.values;
+        int width = content.width;
+        float delta = times[to] - times[from];
+        for (int k = from + 1; k < to; k++) {
+            float alpha = delta > 0 ? (times[k] - times[from]) / delta : 0;
+            content.interpolator.interpolate(from, to, alpha, scratch);
+            int offset = k * width;
+            // q and -q are the same rotation
+            float sign = 1;
+            if (rotation) {
+                float dot = 0;
+                for (int i = 0; i < width; i++) {
+                    dot += scratch[i] * values[offset + i];
+                }
+                sign = dot < 0 ? -1 : 1;
+            }
+            for (int i = 0; i < width; i++) {
+                if (Math.abs(scratch[i] - sign * values[offset + i]) > tolerance) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pack a unit quaternion (x, y, z, w) into the low 47 bits of a long:
+     * 2 bits for the index of the dropped largest component, then 15 bits for each of the other three
+     */
+    public static long quantizeRotation(float[] values, int offset) {
+        float lengthSq = 0;
+        int largest = 0;
+        for (int i = 0; i < 4; i++) {
+            float value = values[offset + i];
+            lengthSq += value * value;
+            if (Math.abs(value) > Math.abs(values[offset + largest])) {
+                largest = i;
+            }
+        }
+        float scale = lengthSq > 0 ? (float) (1 / Math.sqrt(lengthSq)) : 1;
+        // Make the dropped component positive, so that it can be recovered from the other three
+        if (values[offset + largest] < 0) {
+            scale = -scale;
+        }
+        long packed = largest;
+        for (int i = 0; i < 4; i++) {
+            if (i == largest) {
+                continue;
+            }
+            float normalized = (values[offset + i] * scale + QUANTIZE_RANGE) / (2 * QUANTIZE_RANGE);
+            long quantized = Math.max(0, Math.min(QUANTIZE_MAX, Math.round(normalized * QUANTIZE_MAX)));
+            packed = (packed << QUANTIZE_BITS) | quantized;
+        }
+        return packed;
+    }
+
+    /**
+     * Unpack a quaternion written by {@link #quantizeRotation(float[], int)}
+     */
+    public static void dequantizeRotation(long packed, float[] values, int offset) {
+        int largest = (int) (packed >>> (QUANTIZE_BITS * 3)) & 3;
+        float sumSq = 0;
+        int shift = QUANTIZE_BITS * 2;
+        for (int i = 0; i < 4; i++) {
+            if (i == largest) {
+                continue;
+            }
+            int quantized = (int) (packed >>> shift) & QUANTIZE_MAX;
+            float value = (float) quantized / QUANTIZE_MAX * (2 * QUANTIZE_RANGE) - QUANTIZE_RANGE;
+            values[offset + i] = value;
+            sumSq += value * value;
+            shift -= QUANTIZE_BITS;
+        }
+        values[offset + largest] = (float) Math.sqrt(Math.max(0, 1 - sumSq));
+    }
+
+    /**
+     * Approximate heap size of an array with compressed object pointers
+     */
+    private static long arrayBytes(int length, int elementBytes) {
+        return (16L + (long) length * elementBytes + 7) & ~7L;
+    }
+
+    /**
+     * @param bytesBefore Estimated heap size of the key frames as decoded, with one array per key frame value
+     * @param bytesAfter  Estimated heap size of the compacted key frames
+     */
+    public record Report(String animation, int keyframesBefore, int keyframesAfter, long bytesBefore, long bytesAfter) {
+        public long getBytesSaved() {
+            return bytesBefore - bytesAfter;
+        }
+    }
+}
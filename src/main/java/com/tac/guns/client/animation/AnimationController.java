@@ -92,6 +92,14 @@ public class AnimationController {
         }
     }
 
+    /**
+     * 停止全部轨道上的动画并清空队列，用于把控制器交给另一个对象复用
+     */
+    synchronized public void removeAllAnimations() {
+        currentRunners.clear();
+        animationQueue.clear();
+    }
+
     synchronized public void update() {
         for (int i = 0; i < currentRunners.size(); i++) {
             ObjectAnimationRunner runner = currentRunners.get(i);
@@ -5,9 +5,13 @@ public interface AnimationListener {
      * @param values When ChannelType is TRANSLATION, the length of values will be 3 and will store xyz offsets(NOT GLOBAL TRANSLATION!!! IT IS LOCAL OFFSET).
      *               When ChannelType is ROTATION, the length of values will be 4 and will store quaternions.(ALSO LOCAL ROTATION)
      *               When ChannelType is SCALE, the length of values will be 3 and will store xyz scale.(ALSO LOCAL SCALE)
+     *               The array is a reused buffer, copy the values instead of keeping a reference to it.
      */
     void update(float[] values);
 
+    /**
+     * The array may be reused by both sides, callers must not modify it and implementations may overwrite it on the next call.
+     */
     float[] recover();
 
     ObjectAnimationChannel.ChannelType getType();
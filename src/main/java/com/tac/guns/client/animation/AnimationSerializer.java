@@ -0,0 +1,146 @@
+package com.tac.guns.client.animation;
+
+import com.tac.guns.client.animation.interpolator.InterpolatorUtil;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of decoded animation prototypes.
+ * Only the keyframe times, keyframe values and interpolation type of each channel are stored,
+ * animation listeners are never serialized. All numbers are big-endian.
+ * Quantized rotation channels store each value as a 48-bit smallest-three quaternion.
+ */
+public class AnimationSerializer {
+    private static final ObjectAnimationChannel.ChannelType[] CHANNEL_TYPES = ObjectAnimationChannel.ChannelType.values();
+    private static final InterpolatorUtil.InterpolatorType[] INTERPOLATOR_TYPES = InterpolatorUtil.InterpolatorType.values();
+
+    public static void write(List<ObjectAnimation> animations, DataOutput out) throws IOException {
+        out.writeInt(animations.size());
+        for (ObjectAnimation animation : animations) {
+            writeString(out, animation.name);
+            List<ObjectAnimationChannel> channels = new ArrayList<>();
+            animation.getChannels().values().forEach(channels::addAll);
+            out.writeInt(channels.size());
+            for (ObjectAnimationChannel channel : channels) {
+                writeChannel(out, channel);
+            }
+        }
+    }
+
+    /**
+     * Read animation prototypes from the buffer, starting at its current position.
+     *
+     * @throws java.nio.BufferUnderflowException if the data is truncated
+     * @throws IllegalArgumentException          if the data is malformed
+     */
+    public static List<ObjectAnimation> read(ByteBuffer buffer) {
+        int animationCount = readCount(buffer);
+        List<ObjectAnimation> result = new ArrayList<>(animationCount);
+        for (int i = 0; i < animationCount; i++) {
+            ObjectAnimation animation = new ObjectAnimation(readString(buffer));
+            int channelCount = readCount(buffer);
+            for (int j = 0; j < channelCount; j++) {
+                animation.addChannel(readChannel(buffer));
+            }
+            result.add(animation);
+        }
+        return result;
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeChannel(DataOutput out, ObjectAnimationChannel channel) throws IOException {
+        AnimationChannelContent content = channel.content;
+        writeString(out, channel.node);
+        out.writeByte(channel.type.ordinal());
+        out.writeByte(content.interpolator.getType().ordinal());
+        out.writeBoolean(content.quantized);
+        out.writeInt(content.keyframeTimeS.length);
+        out.writeInt(content.width);
+        out.writeInt(content.values.length);
+        for (float time : content.keyframeTimeS) {
+            out.writeFloat(time);
+        }
+        if (content.quantized) {
+            // 48-bit smallest-three quaternions, see AnimationCompactor
+            for (int offset = 0; offset < content.values.length; offset += 4) {
+                long packed = AnimationCompactor.quantizeRotation(content.values, offset);
+                out.writeShort((int) (packed >>> 32));
+                out.writeShort((int) (packed >>> 16));
+                out.writeShort((int) packed);
+            }
+        } else {
+            for (float value : content.values) {
+                out.writeFloat(value);
+            }
+        }
+    }
+
+    private static ObjectAnimationChannel readChannel(ByteBuffer buffer) {
+        String node = readString(buffer);
+        ObjectAnimationChannel.ChannelType type = CHANNEL_TYPES[readOrdinal(buffer, CHANNEL_TYPES.length)];
+        InterpolatorUtil.InterpolatorType interpolation = INTERPOLATOR_TYPES[readOrdinal(buffer, INTERPOLATOR_TYPES.length)];
+        boolean quantized = buffer.get() != 0;
+        int keyframeCount = readCount(buffer);
+        int width = readCount(buffer);
+        int valueCount = readCount(buffer);
+        if (quantized && (width != 4 || valueCount != keyframeCount * 4)) {
+            throw new IllegalArgumentException("Invalid quantized channel");
+        }
+
+        ObjectAnimationChannel channel = new ObjectAnimationChannel(type);
+        channel.node = node;
+        channel.content.keyframeTimeS = new float[keyframeCount];
+        channel.content.values = new float[valueCount];
+        channel.content.width = width;
+        channel.content.quantized = quantized;
+        readFloats(buffer, channel.content.keyframeTimeS);
+        if (quantized) {
+            for (int offset = 0; offset < valueCount; offset += 4) {
+                long packed = ((buffer.getShort() & 0xFFFFL) << 32) | ((buffer.getShort() & 0xFFFFL) << 16) | (buffer.getShort() & 0xFFFFL);
+                AnimationCompactor.dequantizeRotation(packed, channel.content.values, offset);
+            }
+        } else {
+            readFloats(buffer, channel.content.values);
+        }
+        channel.content.interpolator = InterpolatorUtil.fromInterpolation(interpolation);
+        channel.content.interpolator.compile(channel);
+        return channel;
+    }
+
+    private static void readFloats(ByteBuffer buffer, float[] dst) {
+        buffer.asFloatBuffer().get(dst);
+        buffer.position(buffer.position() + dst.length * Float.BYTES);
+    }
+
+    private static int readCount(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid element count: " + count);
+        }
+        return count;
+    }
+
+    private static int readOrdinal(ByteBuffer buffer, int bound) {
+        int ordinal = buffer.get() & 0xFF;
+        if (ordinal >= bound) {
+            throw new IllegalArgumentException("Invalid ordinal: " + ordinal);
+        }
+        return ordinal;
+    }
+}
@@ -19,6 +19,21 @@ public class Animations {
         return new AnimationController(createAnimationFromGltf(structure, (AnimationListenerSupplier[]) null), supplier);
     }
 
+    /**
+     * Create a controller from already decoded prototypes, e.g. those read back from the animation cache.
+     * Prototypes are never modified by the controller, so they can be shared between controllers.
+     */
+    public static AnimationController createController(@Nonnull List<ObjectAnimation> prototypes, @Nonnull AnimationListenerSupplier supplier) {
+        return new AnimationController(prototypes, supplier);
+    }
+
+    /**
+     * Decode the gltf animations into prototypes without any Animation Listener.
+     */
+    public static @Nonnull List<ObjectAnimation> createPrototypesFromGltf(@Nonnull AnimationStructure structure) {
+        return createAnimationFromGltf(structure, (AnimationListenerSupplier[]) null);
+    }
+
     protected static @Nonnull List<ObjectAnimation> createAnimationFromGltf(@Nonnull AnimationStructure structure, @Nullable AnimationListenerSupplier... suppliers) {
         List<ObjectAnimation> result = new ArrayList<>();
 
@@ -67,15 +82,17 @@ public class Animations {
                 int numKeyElements = inputFloatData.getNumElements();
                 int numValuesElements = outputFloatData.getTotalNumComponents() / numKeyElements;
                 float[] keyframeTimeS = new float[numKeyElements];
-                float[][] values = new float[numKeyElements][numValuesElements];
+                float[] values = new float[numKeyElements * numValuesElements];
                 for (int i = 0; i < numKeyElements; i++) {
                     keyframeTimeS[i] = inputFloatData.get(i);
-                    for (int j = 0; j < numValuesElements; j++) {
-                        values[i][j] = outputFloatData.get(i * numValuesElements + j);
-                    }
+                }
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = outputFloatData.get(i);
                 }
                 channel.content.keyframeTimeS = keyframeTimeS;
                 channel.content.values = values;
+                //cubic spline key frames hold in-tangent, value and out-tangent
+                channel.content.width = interpolation.equals(AnimationModel.Interpolation.SPLINE) ? numValuesElements / 3 : numValuesElements;
 
                 //compile the interpolator after everything loaded
                 channel.content.interpolator.compile(channel);
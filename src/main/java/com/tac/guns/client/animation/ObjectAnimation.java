@@ -12,6 +12,10 @@ public class ObjectAnimation {
      * key of this map is node name.
      */
     private final Map<String, List<ObjectAnimationChannel>> channels = new HashMap<>();
+    /**
+     * All channels in a flat list, so that {@link #update()} does not need to walk the map.
+     */
+    private final List<ObjectAnimationChannel> channelList = new ArrayList<>();
     public @Nonnull PlayType playType = PlayType.PLAY_ONCE_HOLD;
     /**
      * The current playing progress time, in nanoseconds
@@ -42,6 +46,7 @@ public class ObjectAnimation {
                 ObjectAnimationChannel newChannel = new ObjectAnimationChannel(channel.type, channel.content);
                 newChannel.node = channel.node;
                 newList.add(newChannel);
+                this.channelList.add(newChannel);
             }
             this.channels.put(entry.getKey(), newList);
         }
@@ -53,6 +58,7 @@ public class ObjectAnimation {
             list.add(channel);
             return list;
         });
+        channelList.add(channel);
 
         if (channel.getEndTimeS() > maxEndTimeS)
             maxEndTimeS = channel.getEndTimeS();
@@ -76,10 +82,9 @@ public class ObjectAnimation {
      * Trigger all listeners to notify them of the updated value.
      */
     public void update() {
-        for (List<ObjectAnimationChannel> channels : channels.values()) {
-            for (ObjectAnimationChannel channel : channels) {
-                channel.update(timeNs / 1e9f);
-            }
+        float timeS = timeNs / 1e9f;
+        for (int i = 0; i < channelList.size(); i++) {
+            channelList.get(i).update(timeS);
         }
     }
 
@@ -5,6 +5,10 @@ import java.util.Arrays;
 import java.util.List;
 
 public class ObjectAnimationChannel {
+    /**
+     * How many key frames the cursor may walk forward before falling back to binary search
+     */
+    private static final int MAX_CURSOR_STEPS = 4;
     public final ChannelType type;
     private final List<AnimationListener> listeners = new ArrayList<>();
     /**
@@ -20,6 +24,15 @@ public class ObjectAnimationChannel {
      * Please don't change it if you don't understand what you are doing.
      */
     boolean transitioning = false;
+    /**
+     * Reused result buffer of {@link #update(float)}, listeners must not keep a reference to it.
+     */
+    private float[] scratch;
+    /**
+     * The key frame index found by the last sample. Each running channel has its own cursor,
+     * the content shared between channels of the same prototype is never modified.
+     */
+    private int cursor;
 
     public ObjectAnimationChannel(ChannelType type) {
         this.type = type;
@@ -61,30 +74,74 @@ public class ObjectAnimationChannel {
      */
     public void update(float timeS) {
         if (!transitioning) {
-            float[] result = getResult(timeS);
-            for (AnimationListener listener : listeners) {
-                listener.update(result);
+            if (scratch == null) {
+                scratch = new float[getWidth()];
+            }
+            float[] result = getResult(timeS, scratch);
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).update(result);
             }
         }
     }
 
+    /**
+     * @return a newly allocated array, use {@link #getResult(float, float[])} on hot paths
+     */
     public float[] getResult(float timeS) {
+        return getResult(timeS, new float[getWidth()]);
+    }
+
+    /**
+     * Compute the channel value at the given time into {@code result} without allocating.
+     *
+     * @param result destination, its length must be {@link #getWidth()}
+     * @return {@code result}
+     */
+    public float[] getResult(float timeS, float[] result) {
         int indexFrom = computeIndex(timeS);
         int indexTo = Math.min(content.keyframeTimeS.length - 1, indexFrom + 1);
         float alpha = computeAlpha(timeS, indexFrom);
 
-        float[] result = new float[content.values[indexFrom].length];
         content.interpolator.interpolate(indexFrom, indexTo, alpha, result);
 
         return result;
     }
 
-    private int computeIndex(float timeS) {
-        int index = Arrays.binarySearch(content.keyframeTimeS, timeS);
-        if (index >= 0) {
-            return index;
+    /**
+     * Number of components of a value, 3 for translation and scale, 4 for rotation
+     */
+    public int getWidth() {
+        return content.width;
+    }
+
+    /**
+     * Index of the key frame at or before the given time.
+     * Playback time usually advances by a small step, so the search starts from the last result and walks forward;
+     * seeks, loops and transitions that move the time backwards or far ahead fall back to binary search.
+     * Package-private for tests and benchmarks.
+     */
+    int computeIndex(float timeS) {
+        float[] times = content.keyframeTimeS;
+        int index = cursor;
+        if (index < times.length && times[index] <= timeS) {
+            int limit = Math.min(times.length - 1, index + MAX_CURSOR_STEPS);
+            while (index < limit && times[index + 1] <= timeS) {
+                index++;
+            }
+            if (index == times.length - 1 || times[index + 1] > timeS) {
+                cursor = index;
+                return index;
+            }
+        } else if (times.length == 0 || timeS < times[0]) {
+            cursor = 0;
+            return 0;
+        }
+        index = Arrays.binarySearch(times, timeS);
+        if (index < 0) {
+            index = Math.max(0, -index - 2);
         }
-        return Math.max(0, -index - 2);
+        cursor = index;
+        return index;
     }
 
     private float computeAlpha(float timeS, int indexFrom) {
@@ -38,6 +38,12 @@ public class ObjectAnimationRunner {
     @Nullable
     private ObjectAnimationRunner transitionTo;
     private long transitionProgressNs;
+    /**
+     * Reused buffers of {@link #updateTransition(float)}, indexed by value width (3 or 4).
+     * Listeners consume the values immediately, so sharing them between channels is safe.
+     */
+    private final float[][] toScratch = new float[5][];
+    private final float[][] resultScratch = new float[5][];
 
     public ObjectAnimationRunner(@Nonnull ObjectAnimation animation) {
         this.animation = Objects.requireNonNull(animation);
@@ -248,52 +254,52 @@ public class ObjectAnimationRunner {
      */
     private void updateTransition(float progress) {
         assert transitionTo != null;
+        float transitionToTimeS = transitionTo.progressNs / 1e9f;
         for (int i = 0; i < transitionToChannels.size(); i++) {
             ObjectAnimationChannel fromChannel = transitionFromChannels.get(i);
             ObjectAnimationChannel toChannel = transitionToChannels.get(i);
 
             float[] from = valueFrom.get(i);
-            float[] to = toChannel.getResult(transitionTo.progressNs / 1e9f);
-            float[] result = new float[from.length];
+            float[] to = toChannel.getResult(transitionToTimeS, scratch(toScratch, from.length));
+            float[] result = scratch(resultScratch, from.length);
 
-            if (fromChannel.type.equals(ObjectAnimationChannel.ChannelType.TRANSLATION)) {
-                lerp(from, to, progress, result);
-            } else if (fromChannel.type.equals(ObjectAnimationChannel.ChannelType.ROTATION)) {
+            if (fromChannel.type.equals(ObjectAnimationChannel.ChannelType.ROTATION)) {
                 slerp(from, to, progress, result);
-            } else if (fromChannel.type.equals(ObjectAnimationChannel.ChannelType.SCALE)) {
+            } else {
                 lerp(from, to, progress, result);
             }
-            for (AnimationListener listener : fromChannel.getListeners()) {
-                listener.update(result);
+            List<AnimationListener> listeners = fromChannel.getListeners();
+            for (int j = 0; j < listeners.size(); j++) {
+                listeners.get(j).update(result);
             }
-
         }
         for (int i = 0; i < recoverChannels.size(); i++) {
             ObjectAnimationChannel channel = recoverChannels.get(i);
             float[] from = valueRecover.get(i);
-            float[] result = new float[from.length];
-            if (channel.type.equals(ObjectAnimationChannel.ChannelType.TRANSLATION)) {
-                for (AnimationListener listener : channel.getListeners()) {
-                    float[] to = listener.recover();
-                    lerp(from, to, progress, result);
-                    listener.update(result);
-                }
-            } else if (channel.type.equals(ObjectAnimationChannel.ChannelType.ROTATION)) {
-                for (AnimationListener listener : channel.getListeners()) {
-                    float[] to = listener.recover();
+            float[] result = scratch(resultScratch, from.length);
+            List<AnimationListener> listeners = channel.getListeners();
+            for (int j = 0; j < listeners.size(); j++) {
+                AnimationListener listener = listeners.get(j);
+                float[] to = listener.recover();
+                if (channel.type.equals(ObjectAnimationChannel.ChannelType.ROTATION)) {
                     slerp(from, to, progress, result);
-                    listener.update(result);
-                }
-            } else if (channel.type.equals(ObjectAnimationChannel.ChannelType.SCALE)) {
-                for (AnimationListener listener : channel.getListeners()) {
-                    float[] to = listener.recover();
+                } else {
                     lerp(from, to, progress, result);
-                    listener.update(result);
                 }
+                listener.update(result);
             }
         }
     }
 
+    private static float[] scratch(float[][] buffers, int width) {
+        float[] buffer = buffers[width];
+        if (buffer == null) {
+            buffer = new float[width];
+            buffers[width] = buffer;
+        }
+        return buffer;
+    }
+
     private float easeOutCubic(double x) {
         return (float) (1 - Math.pow(1 - x, 4));
     }
@@ -21,9 +21,23 @@ public class AnimationStructure {
     private final List<BufferViewModel> bufferViewModels = new ArrayList<>();
     private final List<NodeModel> nodeModels = new ArrayList<>();
     private final RawAnimationStructure gltf;
+    /**
+     * Buffer data that was already loaded by the reader, indexed like the buffers. Entries may be null
+     */
+    private final List<ByteBuffer> loadedBufferData;
 
     public AnimationStructure(RawAnimationStructure asset) {
+        this(asset, Collections.emptyList());
+    }
+
+    /**
+     * @param asset            The raw glTF structure
+     * @param loadedBufferData The buffer data that was already loaded, indexed like the buffers of the asset.
+     *                         Buffers without loaded data are read from their data URI
+     */
+    public AnimationStructure(RawAnimationStructure asset, List<ByteBuffer> loadedBufferData) {
         gltf = asset;
+        this.loadedBufferData = loadedBufferData;
         createAccessorModels();
         createAnimationModels();
         createBufferModels();
@@ -137,7 +151,9 @@ public class AnimationStructure {
         for (int i = 0; i < buffers.size(); i++) {
             Buffer buffer = buffers.get(i);
             BufferModel bufferModel = bufferModels.get(i);
-            {
+            if (i < loadedBufferData.size() && loadedBufferData.get(i) != null) {
+                bufferModel.setBufferData(loadedBufferData.get(i));
+            } else {
                 String uri = buffer.getUri();
                 if (isDataUriString(uri)) {
                     byte[] data = readDataUri(uri);
@@ -275,9 +291,11 @@ public class AnimationStructure {
 
         String interpolationString =
                 animationSampler.getInterpolation();
+        // glTF names spline interpolation CUBICSPLINE
         AnimationModel.Interpolation interpolation =
                 interpolationString == null ? AnimationModel.Interpolation.LINEAR :
-                        AnimationModel.Interpolation.valueOf(interpolationString);
+                        "CUBICSPLINE".equals(interpolationString) ? AnimationModel.Interpolation.SPLINE :
+                                AnimationModel.Interpolation.valueOf(interpolationString);
 
         AnimationModel.Sampler sampler = new AnimationModel.Sampler(
                 inputAccessorModel, interpolation, outputAccessorModel);
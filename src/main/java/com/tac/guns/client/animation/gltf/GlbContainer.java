@@ -0,0 +1,97 @@
+package com.tac.guns.client.animation.gltf;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The chunks of a binary glTF (GLB) container.
+ * <p>
+ * A GLB file is a 12 byte header followed by a JSON chunk and an optional BIN chunk. The BIN chunk is
+ * the data of the first buffer, which has no uri. Both chunks are views of the file content, nothing is copied.
+ */
+public final class GlbContainer {
+    private static final int MAGIC = 0x46546C67;
+    private static final int VERSION = 2;
+    private static final int CHUNK_JSON = 0x4E4F534A;
+    private static final int CHUNK_BIN = 0x004E4942;
+    private static final int HEADER_LENGTH = 12;
+    private static final int CHUNK_HEADER_LENGTH = 8;
+
+    private final byte[] source;
+    private final int jsonOffset;
+    private final int jsonLength;
+    private final ByteBuffer binChunk;
+
+    private GlbContainer(byte[] source, int jsonOffset, int jsonLength, ByteBuffer binChunk) {
+        this.source = source;
+        this.jsonOffset = jsonOffset;
+        this.jsonLength = jsonLength;
+        this.binChunk = binChunk;
+    }
+
+    /**
+     * Whether the given file content starts with the GLB magic
+     */
+    public static boolean isGlb(byte[] source) {
+        return source.length >= HEADER_LENGTH && ByteBuffer.wrap(source).order(ByteOrder.LITTLE_ENDIAN).getInt(0) == MAGIC;
+    }
+
+    /**
+     * Parse the chunk layout of a GLB file
+     *
+     * @param source The complete file content
+     * @return The container
+     * @throws IllegalArgumentException If the content is not a valid GLB 2.0 container
+     */
+    public static GlbContainer parse(byte[] source) {
+        ByteBuffer buffer = ByteBuffer.wrap(source).order(ByteOrder.LITTLE_ENDIAN);
+        if (!isGlb(source)) {
+            throw new IllegalArgumentException("Not a binary glTF file");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary glTF version: " + version);
+        }
+        int length = Math.min(buffer.getInt(8), source.length);
+        int jsonOffset = -1;
+        int jsonLength = 0;
+        ByteBuffer binChunk = null;
+        int offset = HEADER_LENGTH;
+        while (offset + CHUNK_HEADER_LENGTH <= length) {
+            int chunkLength = buffer.getInt(offset);
+            int chunkType = buffer.getInt(offset + 4);
+            int chunkStart = offset + CHUNK_HEADER_LENGTH;
+            if (chunkLength < 0 || chunkStart + chunkLength > length) {
+                throw new IllegalArgumentException("Binary glTF chunk exceeds the file length");
+            }
+            if (chunkType == CHUNK_JSON && jsonOffset < 0) {
+                jsonOffset = chunkStart;
+                jsonLength = chunkLength;
+            } else if (chunkType == CHUNK_BIN && binChunk == null) {
+                binChunk = Buffers.createSlice(buffer, chunkStart, chunkLength);
+            }
+            // Unknown chunks are skipped, chunks are aligned to 4 bytes
+            offset = chunkStart + ((chunkLength + 3) & ~3);
+        }
+        if (jsonOffset < 0) {
+            throw new IllegalArgumentException("Binary glTF file has no JSON chunk");
+        }
+        return new GlbContainer(source, jsonOffset, jsonLength, binChunk);
+    }
+
+    /**
+     * @return A new stream over the JSON chunk
+     */
+    public InputStream openJson() {
+        return new ByteArrayInputStream(source, jsonOffset, jsonLength);
+    }
+
+    /**
+     * @return The BIN chunk, or null when the file has none
+     */
+    public ByteBuffer getBinChunk() {
+        return binChunk;
+    }
+}
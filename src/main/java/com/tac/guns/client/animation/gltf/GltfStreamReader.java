@@ -0,0 +1,380 @@
+package com.tac.guns.client.animation.gltf;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.tac.guns.client.resource.pojo.animation.gltf.*;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming reader for glTF animation files.
+ * <p>
+ * The json is read with a {@link JsonReader} in a single pass. Only the small parts of the file
+ * (accessors, buffer views, nodes and animations) are bound to POJOs, other top level properties are skipped.
+ * Base64 data URIs are intercepted at the byte level before they reach the json reader and decoded straight
+ * into direct buffers, so the multi-megabyte base64 string and its decoded heap copy are never created.
+ * The json reader only sees a short placeholder that refers to the decoded buffer.
+ * <p>
+ * Buffers that are not embedded (external .bin files, or the BIN chunk of a GLB container) are resolved by
+ * the caller, usually after {@link #readBufferUris(InputStream)}, and passed in as already loaded data.
+ */
+public final class GltfStreamReader {
+    /**
+     * The placeholder payload that replaces the base64 content, followed by the index of the decoded buffer
+     */
+    private static final char PLACEHOLDER = '#';
+    private static final String DATA_URI_PREFIX = "data:";
+    private static final String BASE64_MARKER = ";base64,";
+
+    private GltfStreamReader() {
+    }
+
+    /**
+     * Read a glTF json file
+     *
+     * @param inputStream The stream of the file. It is not closed by this method
+     * @param gson        The gson instance used to bind the small json objects
+     * @return The animation structure
+     * @throws IOException If the stream can not be read or the json is malformed
+     */
+    public static AnimationStructure read(InputStream inputStream, Gson gson) throws IOException {
+        return read(inputStream, gson, Collections.emptyList());
+    }
+
+    /**
+     * Read a glTF json file whose non-embedded buffers were already loaded
+     *
+     * @param inputStream     The stream of the json. It is not closed by this method
+     * @param gson            The gson instance used to bind the small json objects
+     * @param externalBuffers The loaded buffer data, indexed like the buffers of the file. Entries may be null
+     * @return The animation structure
+     * @throws IOException If the stream can not be read or the json is malformed
+     */
+    public static AnimationStructure read(InputStream inputStream, Gson gson, List<ByteBuffer> externalBuffers) throws IOException {
+        DataUriInputStream dataUriStream = new DataUriInputStream(inputStream, true);
+        JsonReader reader = new JsonReader(new InputStreamReader(dataUriStream, StandardCharsets.UTF_8));
+        RawAnimationStructure raw = new RawAnimationStructure();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "accessors" -> raw.setAccessors(readList(reader, gson, Accessor.class));
+                case "animations" -> raw.setAnimations(readList(reader, gson, Animation.class));
+                case "buffers" -> raw.setBuffers(readList(reader, gson, Buffer.class));
+                case "bufferViews" -> raw.setBufferViews(readList(reader, gson, BufferView.class));
+                case "nodes" -> raw.setNodes(readList(reader, gson, Node.class));
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new AnimationStructure(raw, resolveBuffers(raw, dataUriStream.decoded, externalBuffers));
+    }
+
+    /**
+     * Read only the uris of the buffers, without decoding any embedded data
+     *
+     * @param inputStream The stream of the json. It is not closed by this method
+     * @return The uri of each buffer, null for buffers without uri
+     * @throws IOException If the stream can not be read or the json is malformed
+     */
+    public static List<String> readBufferUris(InputStream inputStream) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(new DataUriInputStream(inputStream, false), StandardCharsets.UTF_8));
+        List<String> uris = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!"buffers".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String uri = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("uri".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                        uri = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                uris.add(uri);
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return uris;
+    }
+
+    /**
+     * Whether the uri is a data uri, the data of which is embedded in the json
+     */
+    public static boolean isDataUri(String uri) {
+        return uri != null && uri.regionMatches(true, 0, DATA_URI_PREFIX, 0, DATA_URI_PREFIX.length());
+    }
+
+    private static <T> List<T> readList(JsonReader reader, Gson gson, Class<T> type) throws IOException {
+        List<T> list = new ArrayList<>();
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return list;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            list.add(gson.fromJson(reader, type));
+        }
+        reader.endArray();
+        return list;
+    }
+
+    /**
+     * Map each buffer to the loaded external data, or to the decoded data when its uri is a placeholder
+     */
+    private static List<ByteBuffer> resolveBuffers(RawAnimationStructure raw, List<ByteBuffer> decoded, List<ByteBuffer> externalBuffers) {
+        List<ByteBuffer> bufferData = new ArrayList<>();
+        if (raw.getBuffers() == null) {
+            return bufferData;
+        }
+        List<Buffer> buffers = raw.getBuffers();
+        for (int i = 0; i < buffers.size(); i++) {
+            ByteBuffer external = i < externalBuffers.size() ? externalBuffers.get(i) : null;
+            bufferData.add(external != null ? external : resolvePlaceholder(buffers.get(i).getUri(), decoded));
+        }
+        return bufferData;
+    }
+
+    private static ByteBuffer resolvePlaceholder(String uri, List<ByteBuffer> decoded) {
+        if (uri == null || !uri.startsWith(DATA_URI_PREFIX)) {
+            return null;
+        }
+        int markerIndex = uri.indexOf(BASE64_MARKER);
+        if (markerIndex < 0 || uri.length() <= markerIndex + BASE64_MARKER.length() + 1
+                || uri.charAt(markerIndex + BASE64_MARKER.length()) != PLACEHOLDER) {
+            return null;
+        }
+        try {
+            int index = Integer.parseInt(uri.substring(markerIndex + BASE64_MARKER.length() + 1));
+            return index < decoded.size() ? decoded.get(index) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Passes the json bytes through, except for the payload of base64 data URIs, which is decoded into
+     * direct buffers and replaced with a placeholder. Works on UTF-8 bytes: every byte that matters here
+     * is ASCII, and ASCII bytes never occur inside multi-byte sequences.
+     */
+    private static final class DataUriInputStream extends FilterInputStream {
+        private static final int PREFIX_LENGTH = 64;
+        private static final int[] DECODE = new int[128];
+
+        static {
+            Arrays.fill(DECODE, -1);
+            String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+            for (int i = 0; i < alphabet.length(); i++) {
+                DECODE[alphabet.charAt(i)] = i;
+            }
+            // url-safe alphabet
+            DECODE['-'] = 62;
+            DECODE['_'] = 63;
+        }
+
+        private final List<ByteBuffer> decoded = new ArrayList<>();
+        /**
+         * When false the embedded data is discarded instead of decoded
+         */
+        private final boolean decodeData;
+        /**
+         * The first bytes of the json string currently being read
+         */
+        private final byte[] prefix = new byte[PREFIX_LENGTH];
+        private int prefixLength;
+        private boolean inString;
+        private boolean escape;
+        private boolean diverting;
+        /**
+         * Bytes that still have to be passed to the json reader
+         */
+        private byte[] pending;
+        private int pendingIndex;
+        private ByteBuffer output;
+        private int bits;
+        private int bitCount;
+
+        private DataUriInputStream(InputStream in, boolean decodeData) {
+            super(in);
+            this.decodeData = decodeData;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pending != null) {
+                int b = pending[pendingIndex++] & 0xFF;
+                if (pendingIndex == pending.length) {
+                    pending = null;
+                }
+                return b;
+            }
+            while (true) {
+                int b = in.read();
+                if (b < 0) {
+                    return b;
+                }
+                if (diverting) {
+                    if (b == '"') {
+                        finishDecode();
+                        diverting = false;
+                        inString = false;
+                        pending = (PLACEHOLDER + Integer.toString(decoded.size() - 1) + '"').getBytes(StandardCharsets.US_ASCII);
+                        pendingIndex = 0;
+                        return read();
+                    }
+                    decode(b);
+                    continue;
+                }
+                if (!inString) {
+                    if (b == '"') {
+                        inString = true;
+                        prefixLength = 0;
+                    }
+                    return b;
+                }
+                if (escape) {
+                    escape = false;
+                } else if (b == '\\') {
+                    escape = true;
+                } else if (b == '"') {
+                    inString = false;
+                    return b;
+                }
+                if (prefixLength < PREFIX_LENGTH) {
+                    prefix[prefixLength++] = (byte) b;
+                    if (b == ',' && isBase64DataUriPrefix()) {
+                        beginDecode();
+                    }
+                }
+                return b;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int count = 0;
+            while (count < len) {
+                int value = read();
+                if (value < 0) {
+                    return count == 0 ? -1 : count;
+                }
+                b[off + count++] = (byte) value;
+                // Do not block for more input once the underlying stream runs dry
+                if (pending == null && !diverting && in.available() <= 0) {
+                    break;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && read() >= 0) {
+                skipped++;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return pending == null ? 0 : pending.length - pendingIndex;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private boolean isBase64DataUriPrefix() {
+            if (prefixLength < DATA_URI_PREFIX.length() + BASE64_MARKER.length()) {
+                return false;
+            }
+            for (int i = 0; i < DATA_URI_PREFIX.length(); i++) {
+                if (prefix[i] != DATA_URI_PREFIX.charAt(i)) {
+                    return false;
+                }
+            }
+            int start = prefixLength - BASE64_MARKER.length();
+            for (int i = 0; i < BASE64_MARKER.length(); i++) {
+                if (prefix[start + i] != BASE64_MARKER.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void beginDecode() throws IOException {
+            diverting = true;
+            bits = 0;
+            bitCount = 0;
+            if (!decodeData) {
+                return;
+            }
+            // Decoded size if everything left were base64, an exact upper bound for in-memory files
+            int estimate = Math.max(in.available(), 1024) / 4 * 3 + 3;
+            output = Buffers.create(estimate);
+        }
+
+        private void decode(int b) {
+            if (output == null || b >= 128 || DECODE[b] < 0) {
+                // Padding, escaping backslashes and whitespace
+                return;
+            }
+            bits = (bits << 6) | DECODE[b];
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                put((byte) (bits >> bitCount));
+                bits &= (1 << bitCount) - 1;
+            }
+        }
+
+        private void put(byte value) {
+            if (!output.hasRemaining()) {
+                ByteBuffer grown = Buffers.create(output.capacity() * 2);
+                output.flip();
+                grown.put(output);
+                output = grown;
+            }
+            output.put(value);
+        }
+
+        private void finishDecode() {
+            if (output == null) {
+                decoded.add(null);
+                return;
+            }
+            output.flip();
+            ByteBuffer result = output;
+            // Copy into an exactly sized buffer when the estimate was far too large
+            if (result.capacity() - result.limit() > result.limit() / 4) {
+                result = Buffers.create(output.limit());
+                result.put(output);
+                result.flip();
+            }
+            decoded.add(Buffers.createSlice(result));
+            output = null;
+        }
+    }
+}
@@ -2,14 +2,20 @@ package com.tac.guns.client.animation.internal;
 
 import com.tac.guns.client.animation.AnimationController;
 import com.tac.guns.client.animation.ObjectAnimation;
+import com.tac.guns.client.model.bedrock.BedrockModelPose;
 
 public class GunAnimationStateMachine {
     public static final int MAIN_TRACK = 0;
     protected AnimationController controller;
+    /**
+     * 动画控制器写入的姿态，每个状态机独占一个
+     */
+    protected final BedrockModelPose pose;
     protected boolean noAmmo;
 
-    public GunAnimationStateMachine(AnimationController controller) {
+    public GunAnimationStateMachine(AnimationController controller, BedrockModelPose pose) {
         this.controller = controller;
+        this.pose = pose;
     }
 
     public void onGunShoot() {
@@ -44,7 +50,24 @@ public class GunAnimationStateMachine {
         return controller;
     }
 
+    public BedrockModelPose getPose() {
+        return pose;
+    }
+
+    /**
+     * 停止全部动画并清空姿态，状态机被回收、交给其他实体复用前调用
+     */
+    public void reset() {
+        controller.removeAllAnimations();
+        pose.clear();
+        noAmmo = false;
+    }
+
+    /**
+     * 清除上一帧的姿态，再把动画数据写入姿态
+     */
     public void update() {
+        pose.reset();
         controller.update();
     }
 }
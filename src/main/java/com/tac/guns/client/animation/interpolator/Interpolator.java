@@ -6,4 +6,6 @@ public interface Interpolator {
     void compile(ObjectAnimationChannel channel);
 
     void interpolate(int indexFrom, int indexTo, float alpha, float[] result);
+
+    InterpolatorUtil.InterpolatorType getType();
 }
@@ -12,8 +12,17 @@ public class Linear implements Interpolator {
 
     @Override
     public void interpolate(int indexFrom, int indexTo, float alpha, float[] result) {
-        for (int i = 0; i < channel.content.values[indexFrom].length; i++) {
-            result[i] = channel.content.values[indexFrom][i] * (1 - alpha) + channel.content.values[indexTo][i] * alpha;
+        float[] values = channel.content.values;
+        int width = channel.content.width;
+        int from = indexFrom * width;
+        int to = indexTo * width;
+        for (int i = 0; i < width; i++) {
+            result[i] = values[from + i] * (1 - alpha) + values[to + i] * alpha;
         }
     }
+
+    @Override
+    public InterpolatorUtil.InterpolatorType getType() {
+        return InterpolatorUtil.InterpolatorType.LINEAR;
+    }
 }
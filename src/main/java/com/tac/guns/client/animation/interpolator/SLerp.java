@@ -15,14 +15,17 @@ public class SLerp implements Interpolator {
 
     @Override
     public void interpolate(int indexFrom, int indexTo, float alpha, float[] result) {
-        float ax = channel.content.values[indexFrom][0];
-        float ay = channel.content.values[indexFrom][1];
-        float az = channel.content.values[indexFrom][2];
-        float aw = channel.content.values[indexFrom][3];
-        float bx = channel.content.values[indexTo][0];
-        float by = channel.content.values[indexTo][1];
-        float bz = channel.content.values[indexTo][2];
-        float bw = channel.content.values[indexTo][3];
+        float[] values = channel.content.values;
+        int from = indexFrom * 4;
+        int to = indexTo * 4;
+        float ax = values[from];
+        float ay = values[from + 1];
+        float az = values[from + 2];
+        float aw = values[from + 3];
+        float bx = values[to];
+        float by = values[to + 1];
+        float bz = values[to + 2];
+        float bw = values[to + 3];
 
         float dot = ax * bx + ay * by + az * bz + aw * bw;
         if (dot < 0) {
@@ -52,4 +55,9 @@ public class SLerp implements Interpolator {
         result[2] = rz;
         result[3] = rw;
     }
+
+    @Override
+    public InterpolatorUtil.InterpolatorType getType() {
+        return InterpolatorUtil.InterpolatorType.SLERP;
+    }
 }
@@ -1,15 +1,81 @@
 package com.tac.guns.client.animation.interpolator;
 
+import com.tac.guns.client.animation.AnimationChannelContent;
 import com.tac.guns.client.animation.ObjectAnimationChannel;
 
+/**
+ * glTF cubic spline interpolation.
+ * Each key frame stores in-tangent, value and out-tangent, in that order.
+ * The Hermite curve of every segment is expanded into cubic polynomial coefficients at compile time,
+ * so that sampling is a Horner evaluation per component.
+ */
 public class Spline implements Interpolator {
+    private ObjectAnimationChannel channel;
+    /**
+     * Coefficients c0, c1, c2, c3 of {@code c0 + c1 * t + c2 * t^2 + c3 * t^3} for each component of each segment
+     */
+    private float[] coefficients;
+    private boolean normalize;
+
     @Override
     public void compile(ObjectAnimationChannel channel) {
-        //todo
+        this.channel = channel;
+        this.normalize = channel.type == ObjectAnimationChannel.ChannelType.ROTATION;
+        AnimationChannelContent content = channel.content;
+        float[] times = content.keyframeTimeS;
+        float[] values = content.values;
+        int width = content.width;
+        int stride = width * 3;
+        int segmentCount = Math.max(0, times.length - 1);
+        coefficients = new float[segmentCount * width * 4];
+        for (int k = 0; k < segmentCount; k++) {
+            // The tangents are scaled by the duration of the segment
+            float delta = times[k + 1] - times[k];
+            int from = k * stride;
+            int to = from + stride;
+            for (int i = 0; i < width; i++) {
+                float p0 = values[from + width + i];
+                float m0 = values[from + width * 2 + i] * delta;
+                float p1 = values[to + width + i];
+                float m1 = values[to + i] * delta;
+                int offset = (k * width + i) * 4;
+                coefficients[offset] = p0;
+                coefficients[offset + 1] = m0;
+                coefficients[offset + 2] = -3 * p0 - 2 * m0 + 3 * p1 - m1;
+                coefficients[offset + 3] = 2 * p0 + m0 - 2 * p1 + m1;
+            }
+        }
     }
 
     @Override
     public void interpolate(int indexFrom, int indexTo, float alpha, float[] result) {
-        //todo
+        int width = channel.content.width;
+        if (indexTo != indexFrom + 1) {
+            // Outside the key frame range, hold the value of the nearest key frame
+            int index = alpha < 1 ? indexFrom : indexTo;
+            System.arraycopy(channel.content.values, index * width * 3 + width, result, 0, width);
+        } else {
+            int offset = indexFrom * width * 4;
+            for (int i = 0; i < width; i++, offset += 4) {
+                result[i] = ((coefficients[offset + 3] * alpha + coefficients[offset + 2]) * alpha + coefficients[offset + 1]) * alpha + coefficients[offset];
+            }
+        }
+        if (normalize) {
+            float lengthSq = 0;
+            for (int i = 0; i < width; i++) {
+                lengthSq += result[i] * result[i];
+            }
+            if (lengthSq > 0) {
+                float inverse = (float) (1 / Math.sqrt(lengthSq));
+                for (int i = 0; i < width; i++) {
+                    result[i] *= inverse;
+                }
+            }
+        }
+    }
+
+    @Override
+    public InterpolatorUtil.InterpolatorType getType() {
+        return InterpolatorUtil.InterpolatorType.SPLINE;
     }
 }
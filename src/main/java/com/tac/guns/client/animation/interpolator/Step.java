@@ -12,11 +12,13 @@ public class Step implements Interpolator {
 
     @Override
     public void interpolate(int indexFrom, int indexTo, float alpha, float[] result) {
-        for (int i = 0; i < channel.content.values[indexFrom].length; i++) {
-            if (alpha < 1)
-                result[i] = channel.content.values[indexFrom][i];
-            else
-                result[i] = channel.content.values[indexTo][i];
-        }
+        int width = channel.content.width;
+        int offset = (alpha < 1 ? indexFrom : indexTo) * width;
+        System.arraycopy(channel.content.values, offset, result, 0, width);
+    }
+
+    @Override
+    public InterpolatorUtil.InterpolatorType getType() {
+        return InterpolatorUtil.InterpolatorType.STEP;
     }
 }
@@ -5,12 +5,10 @@ import com.mojang.math.Quaternion;
 import com.tac.guns.GunMod;
 import com.tac.guns.api.client.event.BeforeRenderHandEvent;
 import com.tac.guns.api.item.IGun;
-import com.tac.guns.client.model.BedrockGunModel;
 import com.tac.guns.client.resource.ClientGunPackLoader;
 import com.tac.guns.item.GunItem;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.player.LocalPlayer;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.client.event.EntityViewRenderEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
@@ -28,10 +26,8 @@ public class CameraSetupEvent {
         if (player == null || !IGun.mainhandHoldGun(player)) {
             return;
         }
-        ResourceLocation gunId = GunItem.getData(player.getMainHandItem()).getGunId();
-        ClientGunPackLoader.getGunIndex(gunId).ifPresent(gunIndex -> {
-            BedrockGunModel gunModel = gunIndex.getGunModel();
-            Quaternion q = gunModel.getCameraAnimationObject().rotationQuaternion;
+        ClientGunPackLoader.getGunIndex(GunItem.getData(player.getMainHandItem())).ifPresent(gunIndex -> {
+            Quaternion q = gunIndex.getAnimationStateMachine(player).getPose().cameraRotation;
             double yaw = Math.asin(2 * (q.r() * q.j() - q.i() * q.k()));
             double pitch = Math.atan2(2 * (q.r() * q.i() + q.j() * q.k()), 1 - 2 * (q.i() * q.i() + q.j() * q.j()));
             double roll = Math.atan2(2 * (q.r() * q.k() + q.i() * q.j()), 1 - 2 * (q.j() * q.j() + q.k() * q.k()));
@@ -54,11 +50,9 @@ public class CameraSetupEvent {
         if (player == null || !IGun.mainhandHoldGun(player)) {
             return;
         }
-        ResourceLocation gunId = GunItem.getData(player.getMainHandItem()).getGunId();
-        ClientGunPackLoader.getGunIndex(gunId).ifPresent(gunIndex -> {
-            BedrockGunModel gunModel = gunIndex.getGunModel();
+        ClientGunPackLoader.getGunIndex(GunItem.getData(player.getMainHandItem())).ifPresent(gunIndex -> {
             PoseStack poseStack = event.getPoseStack();
-            poseStack.mulPose(gunModel.getCameraAnimationObject().rotationQuaternion);
+            poseStack.mulPose(gunIndex.getAnimationStateMachine(player).getPose().cameraRotation);
         });
     }
 }
@@ -0,0 +1,36 @@
+package com.tac.guns.client.event;
+
+import com.tac.guns.GunMod;
+import com.tac.guns.client.resource.ClientAssetManager;
+import com.tac.guns.client.resource.ClientGunPackLoader;
+import com.tac.guns.client.sound.SoundBufferReleaser;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 周期性回收长时间未使用的枪械模型，以及超出预算的声音和模型文件，并删除已经播放完毕的被回收声音
+ */
+@Mod.EventBusSubscriber(value = Dist.CLIENT, modid = GunMod.MOD_ID)
+public class ClientCacheEvent {
+    /**
+     * 每 10 秒检查一次
+     */
+    private static final int CHECK_INTERVAL_TICKS = 200;
+    private static int tickCount = 0;
+
+    @SubscribeEvent
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) {
+            return;
+        }
+        SoundBufferReleaser.tick();
+        if (++tickCount < CHECK_INTERVAL_TICKS) {
+            return;
+        }
+        tickCount = 0;
+        ClientGunPackLoader.evictIdleModels();
+        ClientAssetManager.INSTANCE.trim();
+    }
+}
@@ -0,0 +1,35 @@
+package com.tac.guns.client.event;
+
+import com.tac.guns.GunMod;
+import com.tac.guns.api.client.player.IClientPlayerGunOperator;
+import com.tac.guns.util.math.SecondOrderDynamics;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.player.LocalPlayer;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 每一帧开始时，用真实的帧间隔推进需要逐帧更新的数值，并执行到时间的开火效果
+ */
+@Mod.EventBusSubscriber(value = Dist.CLIENT, modid = GunMod.MOD_ID)
+public class ClientFrameEvent {
+    private static long lastFrameNanos = -1;
+
+    @SubscribeEvent
+    public static void onRenderTick(TickEvent.RenderTickEvent event) {
+        if (event.phase != TickEvent.Phase.START) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (lastFrameNanos >= 0) {
+            SecondOrderDynamics.stepAll((now - lastFrameNanos) / 1e9f);
+        }
+        lastFrameNanos = now;
+        LocalPlayer player = Minecraft.getInstance().player;
+        if (player != null) {
+            IClientPlayerGunOperator.fromLocalPlayer(player).updateShoot();
+        }
+    }
+}
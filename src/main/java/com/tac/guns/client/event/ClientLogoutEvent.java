@@ -0,0 +1,22 @@
+package com.tac.guns.client.event;
+
+import com.tac.guns.GunMod;
+import com.tac.guns.client.resource.ClientGunPackLoader;
+import com.tac.guns.resource.GunIdRegistry;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 断开连接时清空服务端同步的枪械数字 id 表，避免连接下一个服务端时使用上一个服务端的表
+ */
+@Mod.EventBusSubscriber(value = Dist.CLIENT, modid = GunMod.MOD_ID)
+public class ClientLogoutEvent {
+    @SubscribeEvent
+    public static void onLoggedOut(ClientPlayerNetworkEvent.LoggedOutEvent event) {
+        GunIdRegistry.CLIENT.replace(new ResourceLocation[0]);
+        ClientGunPackLoader.rebuildNumericIndex();
+    }
+}
@@ -4,12 +4,19 @@ import com.tac.guns.client.input.FireSelectKey;
 import com.tac.guns.client.input.InspectKey;
 import com.tac.guns.client.input.ReloadKey;
 import com.tac.guns.client.input.ShootKey;
+import com.tac.guns.client.resource.ClientGunPackLoader;
+import com.tac.guns.config.CommonConfig;
+import com.tac.guns.resource.CommonGunPackLoader;
+import com.tac.guns.resource.PackWatcher;
+import net.minecraft.client.Minecraft;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.client.ClientRegistry;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
 
+import java.util.concurrent.CompletableFuture;
+
 @Mod.EventBusSubscriber(value = Dist.CLIENT, bus = Mod.EventBusSubscriber.Bus.MOD)
 public class ClientSetupEvent {
     @SubscribeEvent
@@ -18,5 +25,12 @@ public class ClientSetupEvent {
         ClientRegistry.registerKeyBinding(ReloadKey.RELOAD_KEY);
         ClientRegistry.registerKeyBinding(ShootKey.SHOOT_KEY);
         ClientRegistry.registerKeyBinding(FireSelectKey.FIRE_SELECT_KEY);
+        if (CommonConfig.WATCH_GUN_PACK.get()) {
+            // 解析在监视线程中完成，只有发布资源、注册纹理和重建 index 交给主线程
+            PackWatcher.start(CommonGunPackLoader.FOLDER, CommonConfig.WATCH_DEBOUNCE_MS.get(), () -> {
+                Runnable apply = ClientGunPackLoader.prepareReload(true);
+                CompletableFuture.runAsync(apply, Minecraft.getInstance()).join();
+            });
+        }
     }
 }
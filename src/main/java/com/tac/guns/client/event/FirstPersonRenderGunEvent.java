@@ -17,7 +17,6 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.player.LocalPlayer;
 import net.minecraft.client.renderer.block.model.ItemTransforms.TransformType;
 import net.minecraft.client.renderer.texture.OverlayTexture;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.InteractionHand;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.item.ItemStack;
@@ -61,10 +60,9 @@ public class FirstPersonRenderGunEvent {
             return;
         }
 
-        ResourceLocation gunId = GunItem.getData(player.getItemInHand(event.getHand())).getGunId();
-        ClientGunPackLoader.getGunIndex(gunId).ifPresent(gunIndex -> {
+        ClientGunPackLoader.getGunIndex(GunItem.getData(player.getItemInHand(event.getHand()))).ifPresent(gunIndex -> {
             BedrockGunModel gunModel = gunIndex.getGunModel();
-            GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine();
+            GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine(player);
             if (gunModel == null) {
                 return;
             }
@@ -76,7 +74,7 @@ public class FirstPersonRenderGunEvent {
                 hotbarSelectedStack = inventorySelected;
                 IClientPlayerGunOperator.fromLocalPlayer(player).draw();
             }
-            // 在渲染之前，先更新动画，让动画数据写入模型
+            // 在渲染之前，先更新动画，让动画数据写入玩家自己的姿态
             if (animationStateMachine != null) {
                 animationStateMachine.update();
             }
@@ -89,10 +87,10 @@ public class FirstPersonRenderGunEvent {
             // 应用枪械动态，如第一人称摄像机定位、后坐力的位移等
             applyFirstPersonGunTransform(player, stack, gunIndex, poseStack, gunModel);
             // 调用模型渲染
-            gunModel.render(0, transformType, stack, player, poseStack, event.getMultiBufferSource(), event.getPackedLight(), OverlayTexture.NO_OVERLAY);
-            // 渲染完成后，将动画数据从模型中清除，不对其他视角下的模型渲染产生影响
+            // 姿态只在这次渲染中应用到模型上，不对其他视角下的模型渲染产生影响
+            gunModel.render(0, transformType, stack, player, poseStack, event.getMultiBufferSource(), event.getPackedLight(), OverlayTexture.NO_OVERLAY,
+                    animationStateMachine != null ? animationStateMachine.getPose() : null);
             poseStack.popPose();
-            gunModel.cleanAnimationTransform();
         });
         event.setCanceled(true);
     }
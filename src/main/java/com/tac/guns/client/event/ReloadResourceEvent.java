@@ -2,8 +2,7 @@ package com.tac.guns.client.event;
 
 import com.tac.guns.GunMod;
 import com.tac.guns.client.resource.ClientGunPackLoader;
-import com.tac.guns.resource.CommonGunPackLoader;
-import com.tac.guns.resource.index.CommonGunIndex;
+import net.minecraft.client.Minecraft;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.client.event.TextureStitchEvent;
@@ -24,18 +23,29 @@ public class ReloadResourceEvent {
         }
     }
 
+    /**
+     * 重载全部枪包，在资源重载时由主线程调用
+     */
     public static void reloadAllPack() {
         StopWatch watch = StopWatch.createStarted();
         {
             ClientGunPackLoader.init();
-            // 先加载全部资源文件
-            ClientGunPackLoader.reloadAsset();
-            CommonGunPackLoader.reloadAsset();
-            // 再加载定义文件
-            ClientGunPackLoader.reloadIndex();
-            CommonGunPackLoader.reloadIndex();
+            ClientGunPackLoader.reload(false);
         }
         watch.stop();
         GunMod.LOGGER.info("Model loading time: {} ms", watch.getTime(TimeUnit.MICROSECONDS) / 1000.0);
     }
+
+    /**
+     * 只重载与上一次相比发生了变化的枪包文件，可以在任意线程调用
+     */
+    public static void reloadChangedPack() {
+        StopWatch watch = StopWatch.createStarted();
+        ClientGunPackLoader.init();
+        Runnable apply = ClientGunPackLoader.prepareReload(true);
+        watch.stop();
+        GunMod.LOGGER.info("Model loading time: {} ms", watch.getTime(TimeUnit.MICROSECONDS) / 1000.0);
+        // 发布资源、注册纹理需要在主线程进行
+        Minecraft.getInstance().execute(apply);
+    }
 }
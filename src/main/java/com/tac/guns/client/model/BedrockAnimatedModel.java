@@ -1,5 +1,7 @@
 package com.tac.guns.client.model;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
 import com.mojang.math.Quaternion;
@@ -8,6 +10,7 @@ import com.tac.guns.client.animation.AnimationListener;
 import com.tac.guns.client.animation.AnimationListenerSupplier;
 import com.tac.guns.client.animation.ObjectAnimationChannel;
 import com.tac.guns.client.model.bedrock.BedrockModel;
+import com.tac.guns.client.model.bedrock.BedrockModelPose;
 import com.tac.guns.client.model.bedrock.BedrockPart;
 import com.tac.guns.client.model.bedrock.IModelRenderer;
 import com.tac.guns.client.model.bedrock.ModelRendererWrapper;
@@ -19,10 +22,20 @@ import net.minecraft.client.renderer.block.model.ItemTransforms;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
-public class BedrockAnimatedModel extends BedrockModel implements AnimationListenerSupplier {
+/**
+ * 模型本身只作为共享的几何数据，动画写入各个实体自己的 {@link BedrockModelPose}，渲染时再临时应用到模型上
+ */
+public class BedrockAnimatedModel extends BedrockModel {
     private final CameraAnimationObject cameraAnimationObject = new CameraAnimationObject();
+    /**
+     * 姿态中骨骼的下标，第一次创建姿态时生成
+     */
+    private volatile @Nullable Map<String, Integer> poseBoneIndex;
+    private @Nullable List<ModelRendererWrapper> poseBones;
 
     public BedrockAnimatedModel(BedrockModelPOJO pojo, BedrockVersion version, RenderType renderType) {
         super(pojo, version, renderType);
@@ -91,16 +104,28 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
             rendererWrapper.setHidden(visible);
     }
 
-    public void cleanAnimationTransform() {
-        for (ModelRendererWrapper rendererWrapper : modelMap.values()) {
-            rendererWrapper.setOffsetX(0);
-            rendererWrapper.setOffsetY(0);
-            rendererWrapper.setOffsetZ(0);
-            rendererWrapper.getAdditionalQuaternion().set(0, 0, 0, 1);
-            rendererWrapper.setScaleX(1);
-            rendererWrapper.setScaleY(1);
-            rendererWrapper.setScaleZ(1);
+    /**
+     * 创建一个新的空白姿态，每个需要独立播放动画的实体持有一个
+     */
+    public synchronized BedrockModelPose createPose() {
+        if (poseBones == null) {
+            Map<String, Integer> boneIndex = Maps.newHashMap();
+            List<ModelRendererWrapper> bones = Lists.newArrayList();
+            modelMap.forEach((name, wrapper) -> {
+                boneIndex.put(name, bones.size());
+                bones.add(wrapper);
+            });
+            poseBoneIndex = boneIndex;
+            poseBones = bones;
         }
+        return new BedrockModelPose(poseBones);
+    }
+
+    /**
+     * 创建把动画写入指定姿态的监听器提供者，姿态必须由本模型的 {@link #createPose()} 创建
+     */
+    public AnimationListenerSupplier createListenerSupplier(BedrockModelPose pose) {
+        return (nodeName, type) -> supplyListeners(pose, nodeName, type);
     }
 
     /**
@@ -143,14 +168,16 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
         super.loadLegacyModel(pojo);
     }
 
-    @Override
-    public AnimationListener supplyListeners(String nodeName, ObjectAnimationChannel.ChannelType type) {
+    @Nullable
+    private AnimationListener supplyListeners(BedrockModelPose pose, String nodeName, ObjectAnimationChannel.ChannelType type) {
         ModelRendererWrapper model = modelMap.get(nodeName);
-        if (model == null) {
+        Integer index = poseBoneIndex == null ? null : poseBoneIndex.get(nodeName);
+        if (model == null || index == null) {
             return null;
         }
+        int bone = index;
 
-        AnimationListener cameraListener = cameraAnimationObject.supplyListeners(nodeName, type);
+        AnimationListener cameraListener = cameraAnimationObject.supplyListeners(pose, nodeName, type);
         if (cameraListener != null) {
             return cameraListener;
         }
@@ -158,6 +185,7 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
         if (type.equals(ObjectAnimationChannel.ChannelType.TRANSLATION)) {
             return new AnimationListener() {
                 final ModelRendererWrapper rendererWrapper = model;
+                final float[] recover = new float[3];
                 BonesItem bonesItem;
 
                 {
@@ -171,20 +199,21 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
                     // 因为模型是上下颠倒的，因此此处x轴和y轴的偏移也进行取反
                     if (bonesItem != null) {
                         // 因为要达成所有位移都是相对位移，所以如果当前node是根node，则减去根node的pivot坐标。
-                        rendererWrapper.setOffsetX(-values[0] - bonesItem.getPivot().get(0) / 16f);
-                        rendererWrapper.setOffsetY(-values[1] + bonesItem.getPivot().get(1) / 16f);
-                        rendererWrapper.setOffsetZ(values[2] - bonesItem.getPivot().get(2) / 16f);
+                        pose.setOffset(bone,
+                                -values[0] - bonesItem.getPivot().get(0) / 16f,
+                                -values[1] + bonesItem.getPivot().get(1) / 16f,
+                                values[2] - bonesItem.getPivot().get(2) / 16f);
                     } else {
                         // 虽然方法名称写的是getRotationPoint，但其实还是相对父级node的坐标移动量。因此此处与listener提供的local translation相减。
-                        rendererWrapper.setOffsetX(-values[0] - rendererWrapper.getRotationPointX() / 16f);
-                        rendererWrapper.setOffsetY(-values[1] - rendererWrapper.getRotationPointY() / 16f);
-                        rendererWrapper.setOffsetZ(values[2] - rendererWrapper.getRotationPointZ() / 16f);
+                        pose.setOffset(bone,
+                                -values[0] - rendererWrapper.getRotationPointX() / 16f,
+                                -values[1] - rendererWrapper.getRotationPointY() / 16f,
+                                values[2] - rendererWrapper.getRotationPointZ() / 16f);
                     }
                 }
 
                 @Override
                 public float[] recover() {
-                    float[] recover = new float[3];
                     if (bonesItem != null) {
                         recover[0] = -bonesItem.getPivot().get(0) / 16f;
                         recover[1] = bonesItem.getPivot().get(1) / 16f;
@@ -206,11 +235,12 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
 
         if (type.equals(ObjectAnimationChannel.ChannelType.ROTATION)) {
             return new AnimationListener() {
-                final ModelRendererWrapper rendererWrapper = model;
+                final Quaternion rotation = Quaternion.ONE.copy();
+                final float[] m = new float[16];
+                final float[] recover = new float[]{0, 0, 0, 1};
 
                 @Override
                 public void update(float[] values) {
-                    float[] m = new float[16];
                     quaternionToMatrix4x4(values, m);
                     // 计算 roll（绕 x 轴的旋转角）
                     float roll = (float) Math.atan2(m[6], m[10]);
@@ -220,12 +250,13 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
                     float yaw = (float) Math.atan2(m[1], m[0]);
                     // 因为模型是上下颠倒的，因此此处roll轴的旋转需要进行取反
                     // 此处不使用forge的Quaternion构造方法是因为这玩意儿竟然是用单位元四元数连乘三轴旋转四元数，这样和欧拉角有什么区别....
-                    toQuaternion(-roll, pitch, yaw, rendererWrapper.getAdditionalQuaternion());
+                    toQuaternion(-roll, pitch, yaw, rotation);
+                    pose.setRotation(bone, rotation.i(), rotation.j(), rotation.k(), rotation.r());
                 }
 
                 @Override
                 public float[] recover() {
-                    return new float[]{0, 0, 0, 1};
+                    return recover;
                 }
 
                 @Override
@@ -237,18 +268,16 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
 
         if (type.equals(ObjectAnimationChannel.ChannelType.SCALE)) {
             return new AnimationListener() {
-                final ModelRendererWrapper rendererWrapper = model;
+                final float[] recover = new float[]{1f, 1f, 1f};
 
                 @Override
                 public void update(float[] values) {
-                    rendererWrapper.setScaleX(values[0]);
-                    rendererWrapper.setScaleY(values[1]);
-                    rendererWrapper.setScaleZ(values[2]);
+                    pose.setScale(bone, values[0], values[1], values[2]);
                 }
 
                 @Override
                 public float[] recover() {
-                    return new float[]{1f, 1f, 1f};
+                    return recover;
                 }
 
                 @Override
@@ -275,6 +304,7 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
         public FunctionalBedrockPart(@Nullable Function<BedrockPart, IModelRenderer> functionalRenderer, @Nonnull BedrockPart part) {
             super(part.name);
             this.cubes.addAll(part.cubes);
+            this.bakedMesh = part.bakedMesh;
             this.children.addAll(part.children);
             this.x = part.x;
             this.y = part.y;
@@ -324,13 +354,11 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
         }
     }
 
-    public static class CameraAnimationObject implements AnimationListenerSupplier {
+    /**
+     * 摄像机节点的信息，动画结果写入姿态的 {@link BedrockModelPose#cameraRotation} 和 {@link BedrockModelPose#cameraTranslation}
+     */
+    public static class CameraAnimationObject {
         public static final String CAMERA_NODE_NAME = "camera";
-        /**
-         * 存在这个四元数中的旋转是世界箱体的旋转，而不是摄像头的旋转（二者互为相反数）
-         */
-        public Quaternion rotationQuaternion = Quaternion.ONE.copy();
-        public Vector3f translationVector = new Vector3f();
 
         /**
          * 当相机的节点为根时，cameraRenderer为空
@@ -341,12 +369,15 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
          */
         protected BonesItem cameraBone;
 
-        @Override
-        public AnimationListener supplyListeners(String nodeName, ObjectAnimationChannel.ChannelType type) {
+        @Nullable
+        public AnimationListener supplyListeners(BedrockModelPose pose, String nodeName, ObjectAnimationChannel.ChannelType type) {
             if (!nodeName.equals(CAMERA_NODE_NAME))
                 return null;
             if (type.equals(ObjectAnimationChannel.ChannelType.TRANSLATION)) {
                 return new AnimationListener() {
+                    final Vector3f translationVector = pose.cameraTranslation;
+                    final float[] recover = new float[3];
+
                     @Override
                     public void update(float[] values) {
                         if (cameraBone != null) {
@@ -364,7 +395,6 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
 
                     @Override
                     public float[] recover() {
-                        float[] recover = new float[3];
                         if (cameraBone != null) {
                             recover[0] = cameraBone.getPivot().get(0) / 16f;
                             recover[1] = cameraBone.getPivot().get(1) / 16f;
@@ -385,9 +415,12 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
             }
             if (type.equals(ObjectAnimationChannel.ChannelType.ROTATION)) {
                 return new AnimationListener() {
+                    final Quaternion rotationQuaternion = pose.cameraRotation;
+                    final float[] m = new float[16];
+                    final float[] recover = new float[]{0, 0, 0, 1f};
+
                     @Override
                     public void update(float[] values) {
-                        float[] m = new float[16];
                         quaternionToMatrix4x4(values, m);
                         // 计算 roll（绕 x 轴的旋转角）
                         float roll = (float) Math.atan2(m[6], m[10]);
@@ -406,7 +439,7 @@ public class BedrockAnimatedModel extends BedrockModel implements AnimationListe
 
                     @Override
                     public float[] recover() {
-                        return new float[]{0, 0, 0, 1f};
+                        return recover;
                     }
 
                     @Override
@@ -5,6 +5,7 @@ import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.math.Matrix3f;
 import com.mojang.math.Matrix4f;
 import com.mojang.math.Vector3f;
+import com.tac.guns.client.model.bedrock.BedrockModelPose;
 import com.tac.guns.client.model.bedrock.BedrockPart;
 import com.tac.guns.client.model.bedrock.ModelRendererWrapper;
 import com.tac.guns.client.resource.pojo.model.BedrockModelPOJO;
@@ -211,6 +212,14 @@ public class BedrockGunModel extends BedrockAnimatedModel {
         }
     }
 
+    /**
+     * 释放模型占用的动力学槽位和顶点缓冲，模型不再使用时在渲染线程调用
+     */
+    public void release() {
+        aimingDynamics.release();
+        closeVertexBuffers();
+    }
+
     public float getEjectionLivingTimeS() {
         return ejectionLivingTimeS;
     }
@@ -266,10 +275,27 @@ public class BedrockGunModel extends BedrockAnimatedModel {
     }
 
     public void render(float partialTicks, ItemTransforms.TransformType transformType, ItemStack stack, LivingEntity entity, PoseStack matrixStack, MultiBufferSource buffer, int light, int overlay) {
+        render(partialTicks, transformType, stack, entity, matrixStack, buffer, light, overlay, null);
+    }
+
+    /**
+     * @param pose 实体自己的动画姿态，只在本次渲染中应用到模型上。为空时以模型的默认姿态渲染
+     */
+    public void render(float partialTicks, ItemTransforms.TransformType transformType, ItemStack stack, LivingEntity entity, PoseStack matrixStack, MultiBufferSource buffer, int light, int overlay, @Nullable BedrockModelPose pose) {
         currentItem = stack;
         currentEntity = entity;
-        //调用上层渲染方法
-        render(transformType, matrixStack, buffer, light, overlay);
+        if (pose != null) {
+            pose.apply();
+        }
+        try {
+            //调用上层渲染方法
+            render(transformType, matrixStack, buffer, light, overlay);
+        } finally {
+            // 渲染完成后立即还原，模型不会残留任何实体的动画数据
+            if (pose != null) {
+                pose.restore();
+            }
+        }
     }
 
     private void renderFirstPersonArm(LocalPlayer player, HumanoidArm hand, PoseStack matrixStack, MultiBufferSource buffer, int combinedLight) {
@@ -0,0 +1,146 @@
+package com.tac.guns.client.model.bedrock;
+
+import com.mojang.blaze3d.vertex.*;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+
+import javax.annotation.Nullable;
+import java.nio.FloatBuffer;
+import java.util.List;
+
+/**
+ * 把一个 BedrockPart 的全部 cube 烘焙成连续的 float 数组。
+ * <p>
+ * 每个面依次存储法线（3 个 float）和四个顶点的坐标与 UV（每个 5 个 float），坐标已经除以 16。
+ * 渲染时每个骨骼只读取一次姿态矩阵，逐顶点做乘加，不再为每个顶点创建 Vector4f、为每个面复制法线。
+ * <p>
+ * 开启显存渲染时，网格会以骨骼的局部坐标上传到 {@link VertexBuffer}，之后每帧只需要提交骨骼的姿态矩阵
+ */
+public class BedrockBakedMesh {
+    private static final int QUAD_STRIDE = 3 + 4 * 5;
+    /**
+     * 只在渲染线程中使用的矩阵暂存区
+     */
+    private static final FloatBuffer POSE = FloatBuffer.allocate(16);
+    private static final FloatBuffer NORMAL = FloatBuffer.allocate(9);
+    private static final PoseStack.Pose IDENTITY = new PoseStack().last();
+    /**
+     * 上传顶点缓冲时共用的 BufferBuilder，BufferBuilder 申请的是堆外内存，不能每次上传都新建
+     */
+    @Nullable
+    private static BufferBuilder uploadBuilder;
+    private final float[] data;
+    /**
+     * 前 swappedQuadCount 个面来自 BedrockCubeBox，它一直以 (light, overlay) 的顺序提交顶点，烘焙后保持不变
+     */
+    private final int swappedQuadCount;
+    private final int quadCount;
+    private final int cubeCount;
+    @Nullable
+    private VertexBuffer vertexBuffer;
+    /**
+     * 光照和覆盖层是顶点属性，上传时写入了顶点缓冲，二者变化时需要重新上传
+     */
+    private int uploadedLight;
+    private int uploadedOverlay;
+
+    private BedrockBakedMesh(float[] data, int swappedQuadCount, int cubeCount) {
+        this.data = data;
+        this.swappedQuadCount = swappedQuadCount;
+        this.quadCount = data.length / QUAD_STRIDE;
+        this.cubeCount = cubeCount;
+    }
+
+    public static BedrockBakedMesh bake(List<BedrockCube> cubes) {
+        Builder box = new Builder();
+        Builder perFace = new Builder();
+        for (BedrockCube cube : cubes) {
+            cube.bake(cube instanceof BedrockCubeBox ? box : perFace);
+        }
+        float[] data = new float[box.data.size() + perFace.data.size()];
+        box.data.getElements(0, data, 0, box.data.size());
+        perFace.data.getElements(0, data, box.data.size(), perFace.data.size());
+        return new BedrockBakedMesh(data, box.data.size() / QUAD_STRIDE, cubes.size());
+    }
+
+    /**
+     * 烘焙时 cube 的数量，用于判断烘焙之后是否又添加了 cube
+     */
+    public int getCubeCount() {
+        return cubeCount;
+    }
+
+    public void render(PoseStack.Pose pose, VertexConsumer consumer, int light, int overlay, float red, float green, float blue, float alpha) {
+        // Matrix4f 和 Matrix3f 按列主序写入
+        pose.pose().store(POSE.clear());
+        pose.normal().store(NORMAL.clear());
+        float[] m = POSE.array();
+        float[] n = NORMAL.array();
+        float[] d = data;
+        for (int quad = 0, i = 0; quad < quadCount; quad++) {
+            float x0 = d[i++], y0 = d[i++], z0 = d[i++];
+            float nx = n[0] * x0 + n[3] * y0 + n[6] * z0;
+            float ny = n[1] * x0 + n[4] * y0 + n[7] * z0;
+            float nz = n[2] * x0 + n[5] * y0 + n[8] * z0;
+            boolean swapped = quad < swappedQuadCount;
+            int first = swapped ? light : overlay;
+            int second = swapped ? overlay : light;
+            for (int vertex = 0; vertex < 4; vertex++) {
+                float x = d[i++], y = d[i++], z = d[i++], u = d[i++], v = d[i++];
+                consumer.vertex(
+                        m[0] * x + m[4] * y + m[8] * z + m[12],
+                        m[1] * x + m[5] * y + m[9] * z + m[13],
+                        m[2] * x + m[6] * y + m[10] * z + m[14],
+                        red, green, blue, alpha, u, v, first, second, nx, ny, nz);
+            }
+        }
+    }
+
+    /**
+     * 获取以骨骼局部坐标上传的顶点缓冲，光照或覆盖层变化时重新上传。只能在渲染线程调用
+     */
+    public VertexBuffer getVertexBuffer(int light, int overlay) {
+        if (vertexBuffer != null && uploadedLight == light && uploadedOverlay == overlay) {
+            return vertexBuffer;
+        }
+        if (vertexBuffer == null) {
+            vertexBuffer = new VertexBuffer();
+        }
+        if (uploadBuilder == null) {
+            uploadBuilder = new BufferBuilder(quadCount * 4 * DefaultVertexFormat.NEW_ENTITY.getVertexSize());
+        }
+        uploadBuilder.begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.NEW_ENTITY);
+        render(IDENTITY, uploadBuilder, light, overlay, 1.0F, 1.0F, 1.0F, 1.0F);
+        uploadBuilder.end();
+        vertexBuffer.upload(uploadBuilder);
+        uploadedLight = light;
+        uploadedOverlay = overlay;
+        return vertexBuffer;
+    }
+
+    /**
+     * 释放显存中的顶点缓冲，之后仍然可以使用，会重新上传
+     */
+    public void closeVertexBuffer() {
+        if (vertexBuffer != null) {
+            vertexBuffer.close();
+            vertexBuffer = null;
+        }
+    }
+
+    public static class Builder {
+        private final FloatArrayList data = new FloatArrayList();
+
+        public void addPolygon(BedrockPolygon polygon) {
+            data.add(polygon.normal.x());
+            data.add(polygon.normal.y());
+            data.add(polygon.normal.z());
+            for (BedrockVertex vertex : polygon.vertices) {
+                data.add(vertex.pos.x() / 16.0F);
+                data.add(vertex.pos.y() / 16.0F);
+                data.add(vertex.pos.z() / 16.0F);
+                data.add(vertex.u);
+                data.add(vertex.v);
+            }
+        }
+    }
+}
@@ -5,4 +5,9 @@ import com.mojang.blaze3d.vertex.VertexConsumer;
 
 public interface BedrockCube {
     void compile(PoseStack.Pose pose, VertexConsumer consumer, int light, int overlay, float red, float green, float blue, float alpha);
+
+    /**
+     * 把全部面写入烘焙网格
+     */
+    void bake(BedrockBakedMesh.Builder builder);
 }
@@ -73,6 +73,13 @@ public class BedrockCubeBox implements BedrockCube {
         this.polygons[5] = new BedrockPolygon(new BedrockVertex[]{vertex5, vertex6, vertex7, vertex8}, p4, p6, p5, p7, texWidth, texHeight, mirror, Direction.SOUTH);
     }
 
+    @Override
+    public void bake(BedrockBakedMesh.Builder builder) {
+        for (BedrockPolygon polygon : this.polygons) {
+            builder.addPolygon(polygon);
+        }
+    }
+
     @Override
     public void compile(PoseStack.Pose pose, VertexConsumer consumer, int light, int overlay, float red, float green, float blue, float alpha) {
         Matrix4f matrix4f = pose.pose();
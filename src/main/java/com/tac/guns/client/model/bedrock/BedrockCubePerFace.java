@@ -69,6 +69,15 @@ public class BedrockCubePerFace implements BedrockCube {
         return new BedrockPolygon(positionsIn, u1, v1, u2, v2, texWidth, texHeight, false, direction);
     }
 
+    @Override
+    public void bake(BedrockBakedMesh.Builder builder) {
+        for (BedrockPolygon polygon : this.polygons) {
+            // 空的面四个顶点重合，不会显示，烘焙时直接跳过
+            if (polygon.vertices != EMPTY_VERTEX) {
+                builder.addPolygon(polygon);
+            }
+        }
+    }
 
     @Override
     public void compile(PoseStack.Pose pose, VertexConsumer consumer, int light, int overlay, float red, float green, float blue, float alpha) {
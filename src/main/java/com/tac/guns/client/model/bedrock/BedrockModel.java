@@ -3,6 +3,7 @@ package com.tac.guns.client.model.bedrock;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
 import com.tac.guns.client.resource.pojo.model.*;
+import com.tac.guns.config.ClientConfig;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.block.model.ItemTransforms;
@@ -41,6 +42,10 @@ public class BedrockModel {
             loadNewModel(pojo);
         }
         this.renderType = renderType;
+        // 模型加载完成后烘焙全部静态几何体
+        for (BedrockPart part : shouldRender) {
+            part.bakeAll();
+        }
     }
 
     public void delegateRender(IModelRenderer renderer) {
@@ -317,14 +322,32 @@ public class BedrockModel {
         this.renderType = renderType;
     }
 
+    /**
+     * 释放全部骨骼的顶点缓冲，模型不再使用时在渲染线程调用
+     */
+    public void closeVertexBuffers() {
+        for (ModelRendererWrapper wrapper : modelMap.values()) {
+            wrapper.getModelRenderer().closeVertexBuffers();
+        }
+    }
+
     protected void render(ItemTransforms.TransformType transformType, PoseStack matrixStack, MultiBufferSource buffer, int light, int overlay) {
         matrixStack.pushPose();
         VertexConsumer builder = buffer.getBuffer(renderType);
+        // 第一人称可以选择显存渲染路径，骨骼的静态网格只上传一次，每帧只提交姿态矩阵
+        BedrockVertexBufferTarget target = null;
+        if (transformType.firstPerson() && ClientConfig.GUN_MODEL_VERTEX_BUFFER.get()) {
+            target = new BedrockVertexBufferTarget(builder, renderType);
+            builder = target;
+        }
         for (BedrockPart model : shouldRender) {
             model.render(matrixStack, transformType, builder, light, overlay);
         }
 
         matrixStack.popPose();
+        if (target != null) {
+            target.finish();
+        }
 
         for (IModelRenderer renderer : delegateRenderers) {
             renderer.render(matrixStack, transformType, builder, light, overlay);
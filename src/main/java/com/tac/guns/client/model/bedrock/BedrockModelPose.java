@@ -0,0 +1,132 @@
+package com.tac.guns.client.model.bedrock;
+
+import com.mojang.math.Quaternion;
+import com.mojang.math.Vector3f;
+
+import java.util.List;
+
+/**
+ * 一个实体持有的模型姿态。动画只写入这里，不直接修改共享的模型。
+ * <p>
+ * 每个骨骼的位移、旋转（四元数）和缩放连续存放在数组中，并记录本帧被动画写入过的骨骼。
+ * 渲染时由 {@link #apply()} 把这些骨骼的数据写入模型，渲染结束后 {@link #restore()} 只还原这些骨骼，
+ * 因此同一个模型可以被多个实体以不同的姿态渲染，也不需要每帧遍历全部骨骼清理动画数据。
+ * 只能在渲染线程中使用
+ */
+public class BedrockModelPose {
+    private final ModelRendererWrapper[] bones;
+    private final float[] offsets;
+    private final float[] rotations;
+    private final float[] scales;
+    private final boolean[] touched;
+    private final int[] touchedBones;
+    private int touchedCount;
+    /**
+     * 摄像机动画的结果，存的是世界箱体的旋转，而不是摄像头的旋转（二者互为相反数）。不会被 {@link #reset()} 清除
+     */
+    public final Quaternion cameraRotation = Quaternion.ONE.copy();
+    public final Vector3f cameraTranslation = new Vector3f();
+
+    public BedrockModelPose(List<ModelRendererWrapper> bones) {
+        int count = bones.size();
+        this.bones = bones.toArray(new ModelRendererWrapper[0]);
+        this.offsets = new float[count * 3];
+        this.rotations = new float[count * 4];
+        this.scales = new float[count * 3];
+        this.touched = new boolean[count];
+        this.touchedBones = new int[count];
+        for (int i = 0; i < count; i++) {
+            setIdentity(i);
+        }
+    }
+
+    public void setOffset(int bone, float x, float y, float z) {
+        touch(bone);
+        offsets[bone * 3] = x;
+        offsets[bone * 3 + 1] = y;
+        offsets[bone * 3 + 2] = z;
+    }
+
+    public void setRotation(int bone, float x, float y, float z, float w) {
+        touch(bone);
+        rotations[bone * 4] = x;
+        rotations[bone * 4 + 1] = y;
+        rotations[bone * 4 + 2] = z;
+        rotations[bone * 4 + 3] = w;
+    }
+
+    public void setScale(int bone, float x, float y, float z) {
+        touch(bone);
+        scales[bone * 3] = x;
+        scales[bone * 3 + 1] = y;
+        scales[bone * 3 + 2] = z;
+    }
+
+    /**
+     * 清除上一帧的动画数据，在每次更新动画前调用
+     */
+    public void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            int bone = touchedBones[i];
+            touched[bone] = false;
+            setIdentity(bone);
+        }
+        touchedCount = 0;
+    }
+
+    /**
+     * 清除全部动画数据，包括摄像机动画
+     */
+    public void clear() {
+        reset();
+        cameraRotation.set(0, 0, 0, 1);
+        cameraTranslation.set(0, 0, 0);
+    }
+
+    /**
+     * 把动画数据写入共享的模型，渲染前调用
+     */
+    public void apply() {
+        for (int i = 0; i < touchedCount; i++) {
+            int bone = touchedBones[i];
+            ModelRendererWrapper wrapper = bones[bone];
+            wrapper.setOffsetX(offsets[bone * 3]);
+            wrapper.setOffsetY(offsets[bone * 3 + 1]);
+            wrapper.setOffsetZ(offsets[bone * 3 + 2]);
+            wrapper.getAdditionalQuaternion().set(rotations[bone * 4], rotations[bone * 4 + 1], rotations[bone * 4 + 2], rotations[bone * 4 + 3]);
+            wrapper.setScaleX(scales[bone * 3]);
+            wrapper.setScaleY(scales[bone * 3 + 1]);
+            wrapper.setScaleZ(scales[bone * 3 + 2]);
+        }
+    }
+
+    /**
+     * 把 {@link #apply()} 写入的骨骼还原，渲染后调用
+     */
+    public void restore() {
+        for (int i = 0; i < touchedCount; i++) {
+            ModelRendererWrapper wrapper = bones[touchedBones[i]];
+            wrapper.setOffsetX(0);
+            wrapper.setOffsetY(0);
+            wrapper.setOffsetZ(0);
+            wrapper.getAdditionalQuaternion().set(0, 0, 0, 1);
+            wrapper.setScaleX(1);
+            wrapper.setScaleY(1);
+            wrapper.setScaleZ(1);
+        }
+    }
+
+    private void touch(int bone) {
+        if (!touched[bone]) {
+            touched[bone] = true;
+            touchedBones[touchedCount++] = bone;
+        }
+    }
+
+    private void setIdentity(int bone) {
+        offsets[bone * 3] = offsets[bone * 3 + 1] = offsets[bone * 3 + 2] = 0;
+        rotations[bone * 4] = rotations[bone * 4 + 1] = rotations[bone * 4 + 2] = 0;
+        rotations[bone * 4 + 3] = 1;
+        scales[bone * 3] = scales[bone * 3 + 1] = scales[bone * 3 + 2] = 1;
+    }
+}
@@ -39,6 +39,11 @@ public class BedrockPart {
     public float yScale = 1;
     public float zScale = 1;
     protected BedrockPart parent;
+    /**
+     * 烘焙后的 cube 顶点，为 null 时在第一次渲染时烘焙
+     */
+    @Nullable
+    protected BedrockBakedMesh bakedMesh;
     private float initRotX;
     private float initRotY;
     private float initRotZ;
@@ -92,8 +97,49 @@ public class BedrockPart {
     }
 
     protected void compile(PoseStack.Pose pose, VertexConsumer consumer, int light, int overlay, float red, float green, float blue, float alpha) {
-        for (BedrockCube bedrockCube : this.cubes) {
-            bedrockCube.compile(pose, consumer, light, overlay, red, green, blue, alpha);
+        if (this.cubes.isEmpty()) {
+            return;
+        }
+        BedrockBakedMesh mesh = this.bakedMesh;
+        // 烘焙之后又添加了 cube，需要重新烘焙
+        if (mesh == null || mesh.getCubeCount() != this.cubes.size()) {
+            mesh = this.bake();
+        }
+        // 显存渲染路径不支持顶点颜色，带颜色的渲染仍然逐顶点提交
+        if (consumer instanceof BedrockVertexBufferTarget target && red == 1.0F && green == 1.0F && blue == 1.0F && alpha == 1.0F) {
+            target.draw(mesh, pose, light, overlay);
+        } else {
+            mesh.render(pose, consumer, light, overlay, red, green, blue, alpha);
+        }
+    }
+
+    /**
+     * 烘焙自身的 cube，模型加载完成后调用，避免第一次渲染时烘焙
+     */
+    public BedrockBakedMesh bake() {
+        this.bakedMesh = BedrockBakedMesh.bake(this.cubes);
+        return this.bakedMesh;
+    }
+
+    /**
+     * 释放自身及全部子骨骼的顶点缓冲，需要在渲染线程调用
+     */
+    public void closeVertexBuffers() {
+        if (this.bakedMesh != null) {
+            this.bakedMesh.closeVertexBuffer();
+        }
+        for (BedrockPart part : this.children) {
+            part.closeVertexBuffers();
+        }
+    }
+
+    /**
+     * 烘焙自身及全部子骨骼
+     */
+    public void bakeAll() {
+        this.bake();
+        for (BedrockPart part : this.children) {
+            part.bakeAll();
         }
     }
 
@@ -0,0 +1,140 @@
+package com.tac.guns.client.model.bedrock;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import com.mojang.math.Matrix3f;
+import com.mojang.math.Matrix4f;
+import com.mojang.math.Vector3f;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.ShaderInstance;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 显存渲染路径的目标。
+ * <p>
+ * 它本身把顶点原样转交给原来的 VertexConsumer，因此功能渲染器、手臂等仍然走即时渲染；
+ * BedrockPart 遇到它时，不再逐顶点提交 cube，而是用骨骼当前的姿态矩阵直接绘制 {@link BedrockBakedMesh} 上传到显存的顶点缓冲。
+ * <p>
+ * 顶点缓冲中的法线是骨骼的局部坐标，绘制每个骨骼前会把光照方向变换到骨骼的局部坐标系中，渲染结束后需要调用 {@link #finish()} 恢复。
+ * 只能在渲染线程中使用
+ */
+public class BedrockVertexBufferTarget implements VertexConsumer {
+    private final VertexConsumer delegate;
+    private final RenderType renderType;
+    private final Vector3f light0 = new Vector3f();
+    private final Vector3f light1 = new Vector3f();
+    private final Vector3f localLight0 = new Vector3f();
+    private final Vector3f localLight1 = new Vector3f();
+    private boolean lightsCaptured;
+
+    public BedrockVertexBufferTarget(VertexConsumer delegate, RenderType renderType) {
+        this.delegate = delegate;
+        this.renderType = renderType;
+    }
+
+    /**
+     * 用骨骼的姿态矩阵绘制烘焙好的网格
+     */
+    public void draw(BedrockBakedMesh mesh, PoseStack.Pose pose, int light, int overlay) {
+        renderType.setupRenderState();
+        ShaderInstance shader = RenderSystem.getShader();
+        if (shader != null) {
+            captureLights(shader);
+            Matrix3f inverseNormal = pose.normal().copy();
+            // 法线矩阵是旋转（可能带缩放），转置即可把光照方向变换到骨骼局部坐标系
+            inverseNormal.transpose();
+            localLight0.set(light0.x(), light0.y(), light0.z());
+            localLight0.transform(inverseNormal);
+            localLight0.normalize();
+            localLight1.set(light1.x(), light1.y(), light1.z());
+            localLight1.transform(inverseNormal);
+            localLight1.normalize();
+            RenderSystem.setShaderLights(localLight0, localLight1);
+
+            Matrix4f modelView = RenderSystem.getModelViewMatrix().copy();
+            modelView.multiply(pose.pose());
+            mesh.getVertexBuffer(light, overlay).drawWithShader(modelView, RenderSystem.getProjectionMatrix(), shader);
+        }
+        renderType.clearRenderState();
+    }
+
+    /**
+     * 恢复绘制前的光照方向
+     */
+    public void finish() {
+        if (lightsCaptured) {
+            RenderSystem.setShaderLights(light0, light1);
+        }
+    }
+
+    private void captureLights(ShaderInstance shader) {
+        if (lightsCaptured || shader.LIGHT0_DIRECTION == null || shader.LIGHT1_DIRECTION == null) {
+            return;
+        }
+        // RenderSystem 没有提供读取光照方向的方法，先写入着色器再读出来
+        RenderSystem.setupShaderLights(shader);
+        FloatBuffer direction0 = shader.LIGHT0_DIRECTION.getFloatBuffer();
+        FloatBuffer direction1 = shader.LIGHT1_DIRECTION.getFloatBuffer();
+        light0.set(direction0.get(0), direction0.get(1), direction0.get(2));
+        light1.set(direction1.get(0), direction1.get(1), direction1.get(2));
+        lightsCaptured = true;
+    }
+
+    @Override
+    public VertexConsumer vertex(double x, double y, double z) {
+        delegate.vertex(x, y, z);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer color(int red, int green, int blue, int alpha) {
+        delegate.color(red, green, blue, alpha);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer uv(float u, float v) {
+        delegate.uv(u, v);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer overlayCoords(int u, int v) {
+        delegate.overlayCoords(u, v);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer uv2(int u, int v) {
+        delegate.uv2(u, v);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer normal(float x, float y, float z) {
+        delegate.normal(x, y, z);
+        return this;
+    }
+
+    @Override
+    public void endVertex() {
+        delegate.endVertex();
+    }
+
+    @Override
+    public void vertex(float x, float y, float z, float red, float green, float blue, float alpha, float texU, float texV, int overlayUV, int lightmapUV, float normalX, float normalY, float normalZ) {
+        delegate.vertex(x, y, z, red, green, blue, alpha, texU, texV, overlayUV, lightmapUV, normalX, normalY, normalZ);
+    }
+
+    @Override
+    public void defaultColor(int red, int green, int blue, int alpha) {
+        delegate.defaultColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void unsetDefaultColor() {
+        delegate.unsetDefaultColor();
+    }
+}
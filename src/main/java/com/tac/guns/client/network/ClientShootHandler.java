@@ -0,0 +1,45 @@
+package com.tac.guns.client.network;
+
+import com.tac.guns.api.item.IGun;
+import com.tac.guns.client.resource.ClientGunPackLoader;
+import com.tac.guns.client.sound.SoundPlayManager;
+import com.tac.guns.item.GunItem;
+import com.tac.guns.network.message.ServerMessageShoot;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * 处理服务端转发的其他实体的开火
+ */
+@OnlyIn(Dist.CLIENT)
+public class ClientShootHandler {
+    /**
+     * 同一实体一个 tick 内最多播放的开火声音次数，高射速时的声音本来就会重叠
+     */
+    private static final int MAX_SOUNDS_PER_SHOOTER = 4;
+
+    public static void handle(ServerMessageShoot message) {
+        Minecraft minecraft = Minecraft.getInstance();
+        ClientLevel level = minecraft.level;
+        if (level == null) {
+            return;
+        }
+        for (int i = 0; i < message.getCount(); i++) {
+            Entity entity = level.getEntity(message.getShooterId(i));
+            // 本地玩家的开火效果已经在客户端执行过了
+            if (!(entity instanceof LivingEntity shooter) || entity == minecraft.player || !IGun.mainhandHoldGun(shooter)) {
+                continue;
+            }
+            int sounds = Math.min(message.getShotCount(i), MAX_SOUNDS_PER_SHOOTER);
+            ClientGunPackLoader.getGunIndex(GunItem.getData(shooter.getMainHandItem())).ifPresent(gunIndex -> {
+                for (int j = 0; j < sounds; j++) {
+                    SoundPlayManager.playClientSound(shooter, gunIndex.getSounds("shoot"), 1.0f, 0.8f);
+                }
+            });
+        }
+    }
+}
@@ -15,7 +15,6 @@ import net.minecraft.client.renderer.BlockEntityWithoutLevelRenderer;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.block.model.ItemTransforms;
 import net.minecraft.client.renderer.blockentity.BlockEntityRenderDispatcher;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.item.ItemStack;
 
 import javax.annotation.Nonnull;
@@ -42,8 +41,7 @@ public class TileEntityItemStackGunRenderer extends BlockEntityWithoutLevelRende
             }
 
             // 剩下的渲染
-            ResourceLocation gunId = GunItem.getData(stack).getGunId();
-            ClientGunPackLoader.getGunIndex(gunId).ifPresent(gunIndex -> {
+            ClientGunPackLoader.getGunIndex(GunItem.getData(stack)).ifPresent(gunIndex -> {
                 if (transformType == GUI) {
                     poseStack.pushPose();
                     poseStack.translate(0.5, 1.5, 0.5);
@@ -0,0 +1,214 @@
+package com.tac.guns.client.resource;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.tac.guns.GunMod;
+import com.tac.guns.client.animation.AnimationSerializer;
+import com.tac.guns.client.animation.ObjectAnimation;
+import com.tac.guns.config.ClientConfig;
+import net.minecraftforge.fml.ModList;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * gltf 动画的磁盘缓存。
+ * <p>
+ * gltf 文件是内嵌 base64 数据的 json，解析需要经过 GSON、base64 解码和关键帧展开三步。
+ * 这里把展开后的关键帧以二进制形式存入 config/tac/cache/animations，文件名为 gltf 文件内容的 SHA-256，
+ * 引用的外部缓冲的 uri 和 SHA-256 记录在缓存文件中，命中时逐一校验。
+ * 缓存的是经过 {@link com.tac.guns.client.animation.AnimationCompactor} 压缩后的关键帧，压缩设置也计入文件名。
+ * 文件头记录缓存格式版本和模组版本。文件内容不变时，重载直接内存映射缓存文件读取关键帧，跳过 json 和 base64
+ */
+public final class AnimationCache {
+    private static final Marker MARKER = MarkerManager.getMarker("AnimationCache");
+    public static final Path FOLDER = Paths.get("config", GunMod.MOD_ID, "cache", "animations");
+    private static final String SUFFIX = ".bin";
+    private static final int MAGIC = 0x54414341;
+    /**
+     * 缓存的二进制格式发生变化时，需要增加该值
+     */
+    private static final int FORMAT_VERSION = 3;
+    private static final int HASH_LENGTH = 32;
+    /**
+     * 本次重载中用到的缓存，其余的缓存会在重载结束后删除
+     */
+    private static final Set<String> USED_KEYS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 读取动画，缓存命中时直接返回缓存的数据，否则调用 parser 解析并写入缓存
+     *
+     * @param source gltf 文件的原始内容
+     * @param parser 缓存未命中时使用的解析方法
+     */
+    public static List<ObjectAnimation> load(byte[] source, Supplier<List<ObjectAnimation>> parser) {
+        return load(source, uri -> null, () -> new Parsed(parser.get(), Collections.emptyMap()));
+    }
+
+    /**
+     * 读取可能引用了外部缓冲的动画。缓存文件中记录了解析时读取的外部缓冲的 uri 和 SHA-256，
+     * 命中时只重新读取并校验这些外部缓冲，不需要读取 json
+     *
+     * @param source   gltf 或 glb 文件的原始内容
+     * @param resolver 根据 uri 读取外部缓冲，文件不存在时返回 null
+     * @param parser   缓存未命中时使用的解析方法
+     */
+    public static List<ObjectAnimation> load(byte[] source, Function<String, ByteBuffer> resolver, Supplier<Parsed> parser) {
+        Hasher hasher = Hashing.sha256().newHasher().putBytes(source);
+        // 关键帧压缩的设置不同，缓存的关键帧也不同
+        hasher.putDouble(ClientConfig.ANIMATION_KEYFRAME_TOLERANCE.get()).putBoolean(ClientConfig.QUANTIZE_ANIMATION_ROTATIONS.get());
+        String key = hasher.hash().toString();
+        USED_KEYS.add(key);
+        Path file = FOLDER.resolve(key + SUFFIX);
+        String modVersion = getModVersion();
+        List<ObjectAnimation> cached = read(file, modVersion, resolver);
+        if (cached != null) {
+            return cached;
+        }
+        Parsed parsed = parser.get();
+        write(file, key, modVersion, parsed);
+        return parsed.animations();
+    }
+
+    /**
+     * 删除本次重载没有用到的缓存文件，需要在全部动画加载完成后调用
+     */
+    public static void pruneUnused() {
+        if (!Files.isDirectory(FOLDER)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.list(FOLDER)) {
+            stream.filter(file -> {
+                String name = file.getFileName().toString();
+                return !name.endsWith(SUFFIX) || !USED_KEYS.contains(name.substring(0, name.length() - SUFFIX.length()));
+            }).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ioException) {
+                    GunMod.LOGGER.warn(MARKER, "Failed to delete animation cache: {}", file);
+                }
+            });
+        } catch (IOException ioException) {
+            ioException.printStackTrace();
+        }
+        USED_KEYS.clear();
+    }
+
+    @Nullable
+    private static List<ObjectAnimation> read(Path file, String modVersion, Function<String, ByteBuffer> resolver) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || !modVersion.equals(AnimationSerializer.readString(buffer))) {
+                return null;
+            }
+            if (!checkExternalBuffers(buffer, resolver)) {
+                return null;
+            }
+            return AnimationSerializer.read(buffer);
+        } catch (IOException | RuntimeException exception) {
+            // 缓存损坏时重新解析即可
+            GunMod.LOGGER.warn(MARKER, "Failed to read animation cache: {}", file);
+            exception.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 外部缓冲的数量、存在与否或内容与写入缓存时不同，都视为未命中
+     */
+    private static boolean checkExternalBuffers(ByteBuffer buffer, Function<String, ByteBuffer> resolver) {
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            String uri = AnimationSerializer.readString(buffer);
+            boolean present = buffer.get() != 0;
+            ByteBuffer external = resolver.apply(uri);
+            if (present != (external != null)) {
+                return false;
+            }
+            if (present) {
+                byte[] hash = new byte[HASH_LENGTH];
+                buffer.get(hash);
+                if (!Arrays.equals(hash, hashBuffer(external))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static byte[] hashBuffer(ByteBuffer buffer) {
+        return Hashing.sha256().hashBytes(buffer.duplicate().clear()).asBytes();
+    }
+
+    private static void write(Path file, String key, String modVersion, Parsed parsed) {
+        Path temp = null;
+        try {
+            Files.createDirectories(FOLDER);
+            // 不同枪包中可能有完全相同的动画文件，先写入临时文件再替换，避免并发写入同一个文件
+            temp = Files.createTempFile(FOLDER, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                AnimationSerializer.writeString(out, modVersion);
+                out.writeInt(parsed.externalBuffers().size());
+                for (Map.Entry<String, ByteBuffer> entry : parsed.externalBuffers().entrySet()) {
+                    AnimationSerializer.writeString(out, entry.getKey());
+                    out.writeBoolean(entry.getValue() != null);
+                    if (entry.getValue() != null) {
+                        out.write(hashBuffer(entry.getValue()));
+                    }
+                }
+                AnimationSerializer.write(parsed.animations(), out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioException) {
+            GunMod.LOGGER.warn(MARKER, "Failed to write animation cache: {}", file);
+            ioException.printStackTrace();
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 解析的结果
+     *
+     * @param animations      压缩后的动画原型
+     * @param externalBuffers 解析时读取的外部缓冲，键为 gltf 中的 uri，文件不存在时值为 null
+     */
+    public record Parsed(List<ObjectAnimation> animations, Map<String, ByteBuffer> externalBuffers) {
+    }
+
+    private static String getModVersion() {
+        return ModList.get().getModContainerById(GunMod.MOD_ID)
+                .map(container -> container.getModInfo().getVersion().toString())
+                .orElse("unknown");
+    }
+}
@@ -1,86 +1,286 @@
 package com.tac.guns.client.resource;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.mojang.blaze3d.audio.SoundBuffer;
-import com.tac.guns.client.animation.gltf.AnimationStructure;
+import com.tac.guns.GunMod;
+import com.tac.guns.client.animation.ObjectAnimation;
+import com.tac.guns.client.resource.cache.AssetCachePool;
+import com.tac.guns.client.resource.cache.CachedAsset;
+import com.tac.guns.client.resource.loader.BedrockModelLoader;
+import com.tac.guns.client.resource.loader.SoundLoader;
 import com.tac.guns.client.resource.pojo.display.GunDisplay;
 import com.tac.guns.client.resource.pojo.model.BedrockModelPOJO;
-import com.tac.guns.resource.pojo.data.GunData;
+import com.tac.guns.client.sound.SoundBufferReleaser;
+import com.tac.guns.config.ClientConfig;
+import com.tac.guns.resource.PackAssetKey;
+import com.tac.guns.resource.PackChangeSet;
+import com.tac.guns.resource.PackFileType;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.AbstractTexture;
+import net.minecraft.client.renderer.texture.TextureManager;
 import net.minecraft.resources.ResourceLocation;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
 
+import javax.annotation.Nullable;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 缓存 Map 的键统一为 ResourceLocation，其 namespace 为枪包的根目录的下一级文件夹的名称， path 为资源对应的 id 。
  * 举例来说，如果需要获取枪包中 "tac/index"
+ * <p>
+ * 重载时各个加载器在线程池中并发写入，写入的数据先存放在待发布的缓存中，
+ * 全部加载完成后调用 {@link #publish()} 一次性替换，渲染线程不会看到只加载了一半的资源
+ * <p>
+ * 声音和模型容易从原始文件重新解码，它们以 {@link CachedAsset} 的形式保存，超出预算时会被回收。
+ * 发布时，上一次重载中已经被替换或删除的资源会立即释放，声音的 OpenAL 缓冲区则等到播放完毕后在声音线程中删除
  */
 public enum ClientAssetManager {
     INSTANCE;
+    private static final Marker MARKER = MarkerManager.getMarker("ClientAssetManager");
     /**
-     * 储存 display 数据
+     * 解码后的 PCM 音频，回收后等声音播放完毕再在声音线程中删除 OpenAL 缓冲区
      */
-    private final Map<ResourceLocation, GunDisplay> gunDisplays = Maps.newHashMap();
+    public static final AssetCachePool SOUND_POOL = new AssetCachePool("sounds", () -> ClientConfig.SOUND_CACHE_MEGABYTES.get() * 1048576L);
     /**
-     * 储存动画
+     * 解析后的基岩版模型，只在创建 BedrockGunModel 时使用
      */
-    private final Map<ResourceLocation, AnimationStructure> animations = Maps.newHashMap();
+    public static final AssetCachePool MODEL_POOL = new AssetCachePool("models", () -> ClientConfig.MODEL_CACHE_MEGABYTES.get() * 1048576L);
     /**
-     * 储存模型
+     * 解析后的模型对象约为 json 文本大小的数倍，按此估算占用
      */
-    private final Map<ResourceLocation, BedrockModelPOJO> models = Maps.newHashMap();
+    private static final int MODEL_WEIGHT_FACTOR = 4;
     /**
-     * 储存声音
+     * 当前正在使用的资源
      */
-    private final Map<ResourceLocation, SoundBuffer> soundBuffers = Maps.newHashMap();
+    private volatile Storage storage = new Storage();
     /**
-     * 存储语言
+     * 重载时，加载线程解析出的资源先写入这里
      */
-    private final Map<String, Map<String, String>> languages = Maps.newHashMap();
+    @Nullable
+    private volatile Storage pending;
+
+    /**
+     * 开始重载，之后所有的 put 操作都会写入待发布的缓存中。
+     * 增量重载时，待发布的缓存以当前资源（或尚未发布的上一次重载）为基础，并移除已经被删除的资源
+     */
+    public void beginReload(PackChangeSet changes) {
+        Storage next = new Storage();
+        Storage loading = pending;
+        if (changes.isFull() && loading != null) {
+            // 上一次重载尚未发布就被全量重载取代
+            dropReplaced(loading.models, storage.models);
+            dropReplaced(loading.soundBuffers, storage.soundBuffers);
+        }
+        if (!changes.isFull()) {
+            Storage current = writable();
+            // 尚未发布的纹理也需要一并带上
+            next.textures.putAll(current.textures);
+            next.removedTextures.addAll(current.removedTextures);
+            next.gunDisplays.putAll(current.gunDisplays);
+            next.animations.putAll(current.animations);
+            next.models.putAll(current.models);
+            next.soundBuffers.putAll(current.soundBuffers);
+            // 语言文件会被合并，只要有变化就需要全部重新读取
+            if (!changes.isTypeChanged(PackFileType.LANGUAGE)) {
+                next.languages.putAll(current.languages);
+            }
+        }
+        for (PackAssetKey key : changes.getRemoved()) {
+            switch (key.type()) {
+                case GUN_DISPLAY -> next.gunDisplays.remove(key.id());
+                case ANIMATION -> next.animations.remove(key.id());
+                case MODEL -> next.models.remove(key.id());
+                case SOUND -> next.soundBuffers.remove(key.id());
+                case TEXTURE -> {
+                    next.textures.remove(key.id());
+                    next.removedTextures.add(key.id());
+                }
+                default -> {
+                }
+            }
+        }
+        pending = next;
+    }
+
+    /**
+     * 发布重载完成的资源，并注册新读取的纹理。需要在所有加载任务完成后调用
+     */
+    public void publish() {
+        Storage loaded = pending;
+        if (loaded == null) {
+            return;
+        }
+        Storage previous = storage;
+        storage = loaded;
+        pending = null;
+        // 上一次重载中没有被沿用的资源不会再被访问
+        dropReplaced(previous.models, loaded.models);
+        dropReplaced(previous.soundBuffers, loaded.soundBuffers);
+        trim();
+        TextureManager textureManager = Minecraft.getInstance().textureManager;
+        loaded.removedTextures.forEach(textureManager::release);
+        loaded.textures.forEach(textureManager::register);
+        loaded.removedTextures.clear();
+        loaded.textures.clear();
+    }
 
     public void putGunDisplay(ResourceLocation registryName, GunDisplay display) {
-        gunDisplays.put(registryName, display);
+        writable().gunDisplays.put(registryName, display);
+    }
+
+    public void putAnimation(ResourceLocation registryName, List<ObjectAnimation> animation) {
+        writable().animations.put(registryName, animation);
     }
 
-    public void putAnimation(ResourceLocation registryName, AnimationStructure animation) {
-        animations.put(registryName, animation);
+    /**
+     * @param source 模型文件的原始内容，模型被回收后用于重新解析
+     */
+    public void putModel(ResourceLocation registryName, byte[] source, BedrockModelPOJO model) {
+        CachedAsset<BedrockModelPOJO> asset = new CachedAsset<>(MODEL_POOL, source, (long) source.length * MODEL_WEIGHT_FACTOR,
+                model, BedrockModelLoader::decode, pojo -> {
+        });
+        dropUnpublished(registryName, writable().models.put(registryName, asset), storage.models);
     }
 
-    public void putModel(ResourceLocation registryName, BedrockModelPOJO model) {
-        models.put(registryName, model);
+    /**
+     * @param source         ogg 文件的原始内容，声音被回收后用于重新解码
+     * @param pcmBytes       解码后 PCM 音频的字节数
+     * @param durationMillis 声音的时长，回收后至少等待这么久才删除 OpenAL 缓冲区
+     */
+    public void putSoundBuffer(ResourceLocation registryName, byte[] source, long pcmBytes, long durationMillis, SoundBuffer soundBuffer) {
+        // 回收时声音可能仍在播放，交给 SoundBufferReleaser 延迟到声音线程中删除
+        CachedAsset<SoundBuffer> asset = new CachedAsset<>(SOUND_POOL, source, pcmBytes,
+                soundBuffer, SoundLoader::decode, buffer -> SoundBufferReleaser.schedule(buffer, durationMillis));
+        dropUnpublished(registryName, writable().soundBuffers.put(registryName, asset), storage.soundBuffers);
     }
 
-    public void putSoundBuffer(ResourceLocation registryName, SoundBuffer soundBuffer) {
-        soundBuffers.put(registryName, soundBuffer);
+    public void putTexture(ResourceLocation registryName, AbstractTexture texture) {
+        writable().textures.put(registryName, texture);
     }
 
+    /**
+     * 多个枪包可能含有同一种语言的文件，这里合并而不是覆盖
+     */
     public void putLanguage(String region, Map<String, String> lang) {
-        languages.put(region, lang);
+        writable().languages.computeIfAbsent(region, key -> Maps.newConcurrentMap()).putAll(lang);
     }
 
     public GunDisplay getGunDisplay(ResourceLocation registryName) {
-        return gunDisplays.get(registryName);
+        return storage.gunDisplays.get(registryName);
     }
 
-    public AnimationStructure getAnimations(ResourceLocation registryName) {
-        return animations.get(registryName);
+    public List<ObjectAnimation> getAnimations(ResourceLocation registryName) {
+        return storage.animations.get(registryName);
     }
 
+    @Nullable
     public BedrockModelPOJO getModels(ResourceLocation registryName) {
-        return models.get(registryName);
+        CachedAsset<BedrockModelPOJO> asset = storage.models.get(registryName);
+        return asset == null ? null : asset.get();
     }
 
+    /**
+     * 在声音线程中调用，不会阻塞。声音已被回收时在后台重新解码，解码完成前返回 null
+     */
+    @Nullable
     public SoundBuffer getSoundBuffers(ResourceLocation registryName) {
-        return soundBuffers.get(registryName);
+        CachedAsset<SoundBuffer> asset = storage.soundBuffers.get(registryName);
+        return asset == null ? null : asset.getNow();
+    }
+
+    /**
+     * 播放声音前调用，声音已被回收时提前在后台重新解码
+     */
+    public void prefetchSoundBuffer(ResourceLocation registryName) {
+        CachedAsset<SoundBuffer> asset = storage.soundBuffers.get(registryName);
+        if (asset != null) {
+            asset.prefetch();
+        }
     }
 
     public Map<String, String> getLanguages(String region) {
-        return languages.get(region);
+        return storage.languages.get(region);
     }
 
     /**
      * 清除所有缓存
      */
     public void clearAll() {
-        // TODO：重载时清理缓存
+        Storage loading = pending;
+        if (loading != null) {
+            dropReplaced(loading.models, Map.of());
+            dropReplaced(loading.soundBuffers, Map.of());
+        }
+        dropReplaced(storage.models, Map.of());
+        dropReplaced(storage.soundBuffers, Map.of());
+        storage = new Storage();
+        pending = null;
+    }
+
+    /**
+     * 回收超出预算的声音和模型，需要在主线程调用
+     */
+    public void trim() {
+        SOUND_POOL.trim();
+        MODEL_POOL.trim();
+        GunMod.LOGGER.debug(MARKER, "{}", SOUND_POOL);
+        GunMod.LOGGER.debug(MARKER, "{}", MODEL_POOL);
+    }
+
+    private static <V> void dropReplaced(Map<ResourceLocation, CachedAsset<V>> previous, Map<ResourceLocation, CachedAsset<V>> next) {
+        previous.forEach((id, asset) -> {
+            if (next.get(id) != asset) {
+                asset.drop();
+            }
+        });
+    }
+
+    /**
+     * 尚未发布就被覆盖的资源，例如多个枪包含有同名的文件，直接释放。已经发布的资源在发布时统一释放
+     */
+    private static <V> void dropUnpublished(ResourceLocation id, @Nullable CachedAsset<V> replaced, Map<ResourceLocation, CachedAsset<V>> published) {
+        if (replaced != null && published.get(id) != replaced) {
+            replaced.drop();
+        }
+    }
+
+    private Storage writable() {
+        Storage loading = pending;
+        return loading != null ? loading : storage;
+    }
+
+    private static class Storage {
+        /**
+         * 储存 display 数据
+         */
+        private final Map<ResourceLocation, GunDisplay> gunDisplays = Maps.newConcurrentMap();
+        /**
+         * 储存解码后的动画原型
+         */
+        private final Map<ResourceLocation, List<ObjectAnimation>> animations = Maps.newConcurrentMap();
+        /**
+         * 储存模型
+         */
+        private final Map<ResourceLocation, CachedAsset<BedrockModelPOJO>> models = Maps.newConcurrentMap();
+        /**
+         * 储存声音
+         */
+        private final Map<ResourceLocation, CachedAsset<SoundBuffer>> soundBuffers = Maps.newConcurrentMap();
+        /**
+         * 储存待注册的纹理，发布后清空
+         */
+        private final Map<ResourceLocation, AbstractTexture> textures = Maps.newConcurrentMap();
+        /**
+         * 储存待释放的纹理，发布后清空
+         */
+        private final Set<ResourceLocation> removedTextures = Sets.newConcurrentHashSet();
+        /**
+         * 存储语言
+         */
+        private final Map<String, Map<String, String>> languages = Maps.newConcurrentMap();
     }
 }
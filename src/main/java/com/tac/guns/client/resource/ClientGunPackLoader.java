@@ -8,31 +8,25 @@ import com.tac.guns.GunMod;
 import com.tac.guns.client.resource.index.ClientAmmoIndex;
 import com.tac.guns.client.resource.index.ClientGunIndex;
 import com.tac.guns.client.resource.loader.*;
-import com.tac.guns.resource.pojo.GunIndexPOJO;
+import com.tac.guns.client.resource.pojo.display.GunDisplay;
 import com.tac.guns.client.resource.pojo.model.CubesItem;
 import com.tac.guns.client.resource.serialize.Vector3fSerializer;
+import com.tac.guns.config.ClientConfig;
+import com.tac.guns.item.nbt.GunItemData;
+import com.tac.guns.resource.*;
+import com.tac.guns.resource.pojo.GunIndexPOJO;
 import com.tac.guns.util.GetJarResources;
-import com.tac.guns.util.TacPathVisitor;
+import net.minecraft.Util;
 import net.minecraft.resources.ResourceLocation;
-import org.apache.logging.log4j.Marker;
-import org.apache.logging.log4j.MarkerManager;
 
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Enumeration;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
-import static com.tac.guns.resource.CommonGunPackLoader.*;
+import static com.tac.guns.resource.CommonGunPackLoader.DEFAULT_GUN_PACK_NAME;
+import static com.tac.guns.resource.CommonGunPackLoader.FOLDER;
 
 public class ClientGunPackLoader {
     public static final Gson GSON = new GsonBuilder().registerTypeAdapter(ResourceLocation.class, new ResourceLocation.Serializer())
@@ -40,12 +34,19 @@ public class ClientGunPackLoader {
             .registerTypeAdapter(Vector3f.class, new Vector3fSerializer())
             .create();
 
-    private static final Marker MARKER = MarkerManager.getMarker("ClientGunPackLoader");
     /**
      * 储存修改过的客户端 index
      */
-    private static final Map<ResourceLocation, ClientGunIndex> GUN_INDEX = Maps.newHashMap();
+    private static volatile Map<ResourceLocation, ClientGunIndex> GUN_INDEX = Maps.newHashMap();
+    /**
+     * 按服务端同步的数字 id 排列的 index，空位为 null
+     */
+    private static volatile ClientGunIndex[] GUN_INDEX_BY_NUMERIC_ID = new ClientGunIndex[0];
     private static final Map<ResourceLocation, ClientAmmoIndex> AMMO_INDEX = Maps.newHashMap();
+    /**
+     * 上一次重载时的文件快照
+     */
+    private static PackSnapshot SNAPSHOT;
 
     /**
      * 创建存放枪包的文件夹、放入默认枪包
@@ -56,28 +57,60 @@ public class ClientGunPackLoader {
     }
 
     /**
-     * 读取所有枪包的资源文件
+     * 注册客户端需要的加载器，index 文件由 CommonGunPackLoader 的加载器统一读取
      */
-    public static void reloadAsset(){
-        ClientAssetManager.INSTANCE.clearAll();
-
-        File[] files = FOLDER.toFile().listFiles((dir, name) -> true);
-        if (files != null) {
-            readAsset(files);
-        }
+    public static void addLoaders(PackLoadPipeline pipeline) {
+        pipeline.addLoader(PackFileType.GUN_DISPLAY, GunDisplayLoader::load)
+                .addLoader(PackFileType.ANIMATION, AnimationLoader::load)
+                .addLoader(PackFileType.MODEL, BedrockModelLoader::load)
+                .addLoader(PackFileType.TEXTURE, TextureLoader::load)
+                .addLoader(PackFileType.SOUND, SoundLoader::load)
+                .addLoader(PackFileType.LANGUAGE, LanguageLoader::load);
     }
 
     /**
-     * 读取所有枪包的定义文件
+     * 读取客户端和服务端的全部枪包资源，需要在主线程调用
+     *
+     * @param incremental 为 true 时只读取与上一次重载相比发生变化的文件
      */
-    public static void reloadIndex(){
-        GUN_INDEX.clear();
-        AMMO_INDEX.clear();
+    public static void reload(boolean incremental) {
+        prepareReload(incremental).run();
+    }
 
-        File[] files = FOLDER.toFile().listFiles((dir, name) -> true);
-        if (files != null) {
-            readGunIndex(files);
+    /**
+     * 扫描并解析客户端和服务端的全部枪包资源，可以在任意线程调用。
+     * 每个枪包只扫描一次，两端的文件在同一个线程池中并行解析。
+     * <p>
+     * 返回的任务负责发布资源、注册纹理并重建 index，必须交给主线程执行
+     *
+     * @param incremental 为 true 时只读取与上一次重载相比发生变化的文件
+     */
+    public static synchronized Runnable prepareReload(boolean incremental) {
+        PackLoadPipeline pipeline = new PackLoadPipeline(FOLDER);
+        CommonGunPackLoader.addLoaders(pipeline);
+        addLoaders(pipeline);
+        PackChangeSet changes = pipeline.scan(SNAPSHOT, !incremental);
+        ClientAssetManager.INSTANCE.beginReload(changes);
+        CommonAssetManager.INSTANCE.beginReload(changes);
+        pipeline.load();
+        if (!incremental) {
+            AnimationCache.pruneUnused();
         }
+        SNAPSHOT = pipeline.getSnapshot();
+        return () -> {
+            // 与下一次 prepareReload 互斥，避免发布只加载了一半的资源
+            synchronized (ClientGunPackLoader.class) {
+                // 全部解析完成后再一次性发布
+                ClientAssetManager.INSTANCE.publish();
+                CommonAssetManager.INSTANCE.publish();
+                // 再加载定义文件
+                reloadIndex(changes);
+                CommonGunPackLoader.reloadIndex(changes);
+            }
+            if (ClientConfig.PREWARM_GUN_MODELS.get()) {
+                prewarm();
+            }
+        };
     }
 
     public static Set<Map.Entry<ResourceLocation, ClientGunIndex>> getAllGuns() {
@@ -92,174 +125,139 @@ public class ClientGunPackLoader {
         return Optional.ofNullable(GUN_INDEX.get(registryName));
     }
 
-    public static Optional<ClientAmmoIndex> getAmmoIndex(ResourceLocation registryName) {
-        return Optional.ofNullable(AMMO_INDEX.get(registryName));
-    }
-
-    private static void createFolder() {
-        File folder = FOLDER.toFile();
-        if (!folder.isDirectory()) {
-            try {
-                Files.createDirectories(folder.toPath());
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+    /**
+     * 优先按数字 id 以数组下标查找，数字 id 无效时再按枪械 id 查找
+     */
+    public static Optional<ClientGunIndex> getGunIndex(GunItemData data) {
+        int numericId = data.getNumericId();
+        ClientGunIndex[] indexById = GUN_INDEX_BY_NUMERIC_ID;
+        if (numericId >= 0 && numericId < indexById.length && indexById[numericId] != null
+                && data.getGunId().equals(GunIdRegistry.CLIENT.getGunId(numericId))) {
+            return Optional.of(indexById[numericId]);
         }
+        return getGunIndex(data.getGunId());
     }
 
-    private static void checkDefaultPack() {
-        // todo 改成可选安装
-        String jarDefaultPackPath = String.format("/assets/%s/custom/%s", GunMod.MOD_ID, DEFAULT_GUN_PACK_NAME);
-        GetJarResources.copyModDirectory(jarDefaultPackPath, FOLDER, DEFAULT_GUN_PACK_NAME);
+    /**
+     * 按服务端同步的数字 id 重建数组，在客户端重载或收到同步的数字 id 表后调用
+     */
+    public static void rebuildNumericIndex() {
+        Map<ResourceLocation, ClientGunIndex> gunIndex = GUN_INDEX;
+        ResourceLocation[] ids = GunIdRegistry.CLIENT.toArray();
+        ClientGunIndex[] indexById = new ClientGunIndex[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            indexById[i] = ids[i] == null ? null : gunIndex.get(ids[i]);
+        }
+        GUN_INDEX_BY_NUMERIC_ID = indexById;
     }
 
-    private static void readAsset(File[] files) {
-        for (File file : files) {
-            if (file.isFile() && file.getName().endsWith(".zip")) {
-                readZipAsset(file);
-            }
-            if (file.isDirectory()) {
-                File[] subFiles = file.listFiles((dir, name) -> true);
-                if (subFiles == null) {
-                    return;
-                }
-                for (File namespaceFile : subFiles) {
-                    readDirAsset(namespaceFile);
-                }
-            }
-        }
+    public static Optional<ClientAmmoIndex> getAmmoIndex(ResourceLocation registryName) {
+        return Optional.ofNullable(AMMO_INDEX.get(registryName));
     }
 
-    private static void readGunIndex(File[] files) {
-        for (File file : files) {
-            if (file.isFile() && file.getName().endsWith(".zip")) {
-                readZipGunIndex(file);
-            }
-            if (file.isDirectory()) {
-                File[] subFiles = file.listFiles((dir, name) -> true);
-                if (subFiles == null) {
-                    return;
-                }
-                for (File namespaceFile : subFiles) {
-                    readDirGunIndex(namespaceFile);
+    /**
+     * 根据已经读取的定义文件构建 index，需要在资源发布后调用。
+     * 只有依赖的资源发生了变化的 index 才会重建，其余的沿用上一次的结果
+     */
+    private static void reloadIndex(PackChangeSet changes) {
+        Set<ResourceLocation> affected = buildDependencyGraph().getAffected(changes);
+        Map<ResourceLocation, ClientGunIndex> gunIndex = Maps.newHashMap();
+        for (Map.Entry<ResourceLocation, GunIndexPOJO> entry : CommonAssetManager.INSTANCE.getAllGunIndex()) {
+            ResourceLocation id = entry.getKey();
+            if (!affected.contains(id)) {
+                ClientGunIndex previous = GUN_INDEX.get(id);
+                if (previous != null) {
+                    gunIndex.put(id, previous);
                 }
+                continue;
             }
-        }
-    }
-
-    private static void readDirAsset(File root) {
-        if (root.isDirectory()) {
             try {
-                GunDisplayLoader.load(root);
-                AnimationLoader.load(root);
-                BedrockModelLoader.load(root);
-                TextureLoader.load(root);
-                SoundLoader.load(root);
-                LanguageLoader.load(root);
-            } catch (IOException e) {
-                e.printStackTrace();
+                gunIndex.put(id, ClientGunIndex.getInstance(entry.getValue()));
+            } catch (IllegalArgumentException exception) {
+                GunMod.LOGGER.warn("{} index file read fail!", id);
+                exception.printStackTrace();
             }
         }
+        // 被替换或删除的 index 不会再被访问，释放它们的模型
+        GUN_INDEX.forEach((id, previous) -> {
+            if (gunIndex.get(id) != previous) {
+                previous.discard();
+            }
+        });
+        GUN_INDEX = gunIndex;
+        rebuildNumericIndex();
+        AMMO_INDEX.clear();
     }
 
-    private static void readDirGunIndex(File root) {
-        if (root.isDirectory()) {
+    /**
+     * 在后台线程中提前创建全部枪械的模型和动画
+     */
+    private static void prewarm() {
+        Map<ResourceLocation, ClientGunIndex> gunIndex = GUN_INDEX;
+        Util.backgroundExecutor().execute(() -> gunIndex.forEach((id, index) -> {
             try {
-                loadGunIndex(root);
-            } catch (IOException e) {
-                e.printStackTrace();
+                index.prewarm();
+            } catch (RuntimeException exception) {
+                GunMod.LOGGER.warn("{} model prewarm fail!", id);
+                exception.printStackTrace();
             }
-        }
+        }));
     }
 
-    private static void readZipAsset(File file) {
-        try (ZipFile zipFile = new ZipFile(file)) {
-            Enumeration<? extends ZipEntry> iteration = zipFile.entries();
-            while (iteration.hasMoreElements()) {
-                String path = iteration.nextElement().getName();
-                // 加载全部的 display 文件
-                if (GunDisplayLoader.load(zipFile, path)) {
-                    continue;
-                }
-                // 加载全部的 animation 文件
-                if (AnimationLoader.load(zipFile, path)) {
-                    continue;
-                }
-                // 加载全部的 model 文件
-                if (BedrockModelLoader.load(zipFile, path)) {
-                    continue;
-                }
-                // 加载全部的 texture 文件
-                if (TextureLoader.load(zipFile, path)) {
-                    continue;
-                }
-                // 加载全部的 sound 文件
-                if (SoundLoader.load(zipFile, path)) {
-                    continue;
-                }
-                // 加载语言文件
-                LanguageLoader.load(zipFile, path);
-            }
-        } catch (IOException ioException) {
-            ioException.printStackTrace();
+    /**
+     * 回收长时间没有使用的动画实例、模型和动画，需要在主线程周期性调用
+     */
+    public static void evictIdleModels() {
+        long now = Util.getMillis();
+        long idleMillis = ClientConfig.GUN_MODEL_IDLE_SECONDS.get() * 1000L;
+        for (ClientGunIndex index : GUN_INDEX.values()) {
+            index.evictIfIdle(now, idleMillis);
         }
     }
 
-    private static void readZipGunIndex(File file) {
-        try (ZipFile zipFile = new ZipFile(file)) {
-            // 第一次读取
-            Enumeration<? extends ZipEntry> iteration = zipFile.entries();
-            while (iteration.hasMoreElements()) {
-                String path = iteration.nextElement().getName();
-                // 加载枪械的 index 文件
-                loadGunIndex(path, zipFile);
+    private static PackDependencyGraph buildDependencyGraph() {
+        PackDependencyGraph graph = new PackDependencyGraph();
+        for (Map.Entry<ResourceLocation, GunIndexPOJO> entry : CommonAssetManager.INSTANCE.getAllGunIndex()) {
+            ResourceLocation id = entry.getKey();
+            GunIndexPOJO pojo = entry.getValue();
+            graph.addDependency(id, PackFileType.GUN_INDEX, id);
+            graph.addDependency(id, PackFileType.GUN_DATA, pojo.getData());
+            graph.addDependency(id, PackFileType.GUN_DISPLAY, pojo.getDisplay());
+            // 缺省的音效、变换和动画从默认枪械中读取
+            graph.addDependency(id, PackFileType.GUN_DISPLAY, GunItemData.DEFAULT_DISPLAY);
+            graph.addDependency(id, PackFileType.ANIMATION, GunItemData.DEFAULT);
+            GunDisplay display = pojo.getDisplay() == null ? null : ClientAssetManager.INSTANCE.getGunDisplay(pojo.getDisplay());
+            if (display == null) {
+                continue;
+            }
+            graph.addDependency(id, PackFileType.MODEL, display.getModelLocation());
+            graph.addDependency(id, PackFileType.ANIMATION, display.getAnimationLocation());
+            graph.addDependency(id, PackFileType.TEXTURE, display.getSlotTextureLocation());
+            graph.addDependency(id, PackFileType.TEXTURE, display.getHudTextureLocation());
+            if (display.getModelTextures() != null) {
+                display.getModelTextures().forEach(texture -> graph.addDependency(id, PackFileType.TEXTURE, texture.getLocation()));
+            }
+            if (display.getSounds() != null) {
+                display.getSounds().values().forEach(sound -> graph.addDependency(id, PackFileType.SOUND, sound));
             }
-        } catch (IOException ioException) {
-            ioException.printStackTrace();
         }
+        return graph;
     }
 
-    private static void loadGunIndex(String path, ZipFile zipFile) throws IOException {
-        Matcher matcher = GUNS_INDEX_PATTERN.matcher(path);
-        if (matcher.find()) {
-            String namespace = matcher.group(1);
-            String id = matcher.group(2);
-            ZipEntry entry = zipFile.getEntry(path);
-            if (entry == null) {
-                GunMod.LOGGER.warn(MARKER, "{} file don't exist", path);
-                return;
-            }
-            try (InputStream stream = zipFile.getInputStream(entry)) {
-                // 获取枪械的定义文件
-                GunIndexPOJO indexPOJO = GSON.fromJson(new InputStreamReader(stream, StandardCharsets.UTF_8), GunIndexPOJO.class);
-                ResourceLocation registryName = new ResourceLocation(namespace, id);
-                try {
-                    GUN_INDEX.put(registryName, ClientGunIndex.getInstance(indexPOJO));
-                } catch (IllegalArgumentException exception) {
-                    GunMod.LOGGER.warn("{} index file read fail!", path);
-                    exception.printStackTrace();
-                }
+    private static void createFolder() {
+        File folder = FOLDER.toFile();
+        if (!folder.isDirectory()) {
+            try {
+                Files.createDirectories(folder.toPath());
+            } catch (Exception e) {
+                e.printStackTrace();
             }
         }
     }
 
-    private static void loadGunIndex(File root) throws IOException {
-        Path filePath = root.toPath().resolve("guns/index");
-        if (Files.isDirectory(filePath)) {
-            TacPathVisitor visitor = new TacPathVisitor(filePath.toFile(), root.getName(), ".json", (id, file) -> {
-                try (InputStream stream = Files.newInputStream(file)) {
-                    // 获取枪械的定义文件
-                    GunIndexPOJO indexPOJO = GSON.fromJson(new InputStreamReader(stream, StandardCharsets.UTF_8), GunIndexPOJO.class);
-                    GUN_INDEX.put(id, ClientGunIndex.getInstance(indexPOJO));
-                } catch (IOException exception) {
-                    GunMod.LOGGER.warn(MARKER, "Failed to read index file: {}", file);
-                    exception.printStackTrace();
-                } catch (IllegalArgumentException exception) {
-                    GunMod.LOGGER.warn("{} index file read fail!", file);
-                    exception.printStackTrace();
-                }
-            });
-            Files.walkFileTree(filePath, visitor);
-        }
+    private static void checkDefaultPack() {
+        // todo 改成可选安装
+        String jarDefaultPackPath = String.format("/assets/%s/custom/%s", GunMod.MOD_ID, DEFAULT_GUN_PACK_NAME);
+        GetJarResources.copyModDirectory(jarDefaultPackPath, FOLDER, DEFAULT_GUN_PACK_NAME);
     }
 }
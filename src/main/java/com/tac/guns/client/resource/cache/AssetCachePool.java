@@ -0,0 +1,114 @@
+package com.tac.guns.client.resource.cache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 同一类资源共享的缓存池，按字节估算占用，超出预算时按最近最少使用的顺序回收 {@link CachedAsset}。
+ * <p>
+ * 回收只在 {@link #trim()} 中进行，由主线程周期性调用，读取资源的线程不会在访问时触发回收
+ */
+public class AssetCachePool {
+    private final String name;
+    private final LongSupplier budgetBytes;
+    /**
+     * 已经解码、驻留在内存中的资源，按访问顺序排列，最早访问的在前
+     */
+    private final Map<CachedAsset<?>, Boolean> resident = Maps.newLinkedHashMap();
+    private long residentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public AssetCachePool(String name, LongSupplier budgetBytes) {
+        this.name = name;
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * 回收最久没有使用的资源，直到占用不超过预算
+     *
+     * @return 回收的资源数量
+     */
+    public int trim() {
+        List<CachedAsset<?>> victims = Lists.newArrayList();
+        synchronized (this) {
+            long budget = budgetBytes.getAsLong();
+            Iterator<CachedAsset<?>> iterator = resident.keySet().iterator();
+            while (residentBytes > budget && iterator.hasNext()) {
+                CachedAsset<?> asset = iterator.next();
+                iterator.remove();
+                residentBytes -= asset.getWeight();
+                victims.add(asset);
+            }
+            evictions += victims.size();
+        }
+        // 释放资源时需要持有资源自身的锁，不能在持有缓存池的锁时进行
+        victims.forEach(CachedAsset::evict);
+        return victims.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public synchronized int getResidentCount() {
+        return resident.size();
+    }
+
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 1 : (double) hits / total;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %d assets, %.1f/%.1f MiB resident, hit rate %.1f%%, %d evictions",
+                name, resident.size(), residentBytes / 1048576.0, budgetBytes.getAsLong() / 1048576.0, getHitRate() * 100, evictions);
+    }
+
+    synchronized void recordHit(CachedAsset<?> asset) {
+        hits++;
+        touch(asset);
+    }
+
+    synchronized void recordMiss(CachedAsset<?> asset) {
+        misses++;
+        touch(asset);
+    }
+
+    synchronized void add(CachedAsset<?> asset) {
+        touch(asset);
+    }
+
+    synchronized void remove(CachedAsset<?> asset) {
+        if (resident.remove(asset) != null) {
+            residentBytes -= asset.getWeight();
+        }
+    }
+
+    synchronized boolean isResident(CachedAsset<?> asset) {
+        return resident.containsKey(asset);
+    }
+
+    private void touch(CachedAsset<?> asset) {
+        // 先移除再放入，移动到队尾
+        if (resident.remove(asset) == null) {
+            residentBytes += asset.getWeight();
+        }
+        resident.put(asset, Boolean.TRUE);
+    }
+}
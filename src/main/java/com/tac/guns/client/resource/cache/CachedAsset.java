@@ -0,0 +1,161 @@
+package com.tac.guns.client.resource.cache;
+
+import com.tac.guns.GunMod;
+import net.minecraft.Util;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * 可以被回收的资源。保存资源文件的原始内容，解码后的对象被回收后，下一次访问时重新解码。
+ * <p>
+ * 适用于原始文件远小于解码结果的资源，例如 ogg 和解码后的 PCM 音频，json 和解析后的模型对象
+ *
+ * @param <V> 解码后的资源类型
+ */
+public class CachedAsset<V> {
+    private static final Marker MARKER = MarkerManager.getMarker("CachedAsset");
+    private final AssetCachePool pool;
+    private final byte[] source;
+    private final long weight;
+    private final Decoder<V> decoder;
+    private final Consumer<V> releaser;
+    @Nullable
+    private V value;
+    /**
+     * 资源所在的重载已经被替换，之后的访问不再进入缓存池
+     */
+    private boolean dropped;
+    /**
+     * 正在后台线程中重新解码
+     */
+    private boolean decoding;
+
+    /**
+     * @param source   资源文件的原始内容
+     * @param weight   解码后的资源估算占用的字节数
+     * @param value    加载时已经解码好的资源
+     * @param releaser 回收时释放资源，例如删除 OpenAL 缓冲区
+     */
+    public CachedAsset(AssetCachePool pool, byte[] source, long weight, V value, Decoder<V> decoder, Consumer<V> releaser) {
+        this.pool = pool;
+        this.source = source;
+        this.weight = weight;
+        this.value = value;
+        this.decoder = decoder;
+        this.releaser = releaser;
+        pool.add(this);
+    }
+
+    /**
+     * 获取资源，已被回收时重新解码
+     *
+     * @return 解码失败时返回 null
+     */
+    @Nullable
+    public synchronized V get() {
+        if (value != null) {
+            if (!dropped) {
+                pool.recordHit(this);
+            }
+            return value;
+        }
+        try {
+            value = decoder.decode(source);
+        } catch (IOException | RuntimeException exception) {
+            GunMod.LOGGER.warn(MARKER, "Failed to decode evicted asset in {}", pool.getName());
+            exception.printStackTrace();
+            return null;
+        }
+        if (!dropped) {
+            pool.recordMiss(this);
+        }
+        return value;
+    }
+
+    /**
+     * 获取资源，不会阻塞调用的线程。已被回收时在后台线程中重新解码，解码完成前返回 null。
+     * 用于声音线程、渲染线程等不能等待解码的场合
+     */
+    @Nullable
+    public synchronized V getNow() {
+        if (value != null) {
+            if (!dropped) {
+                pool.recordHit(this);
+            }
+            return value;
+        }
+        prefetch();
+        return null;
+    }
+
+    /**
+     * 已被回收时，在后台线程中提前重新解码
+     */
+    public synchronized void prefetch() {
+        if (value != null || decoding || dropped) {
+            return;
+        }
+        decoding = true;
+        Util.backgroundExecutor().execute(() -> {
+            V decoded = null;
+            try {
+                decoded = decoder.decode(source);
+            } catch (IOException | RuntimeException exception) {
+                GunMod.LOGGER.warn(MARKER, "Failed to decode evicted asset in {}", pool.getName());
+                exception.printStackTrace();
+            }
+            completeDecode(decoded);
+        });
+    }
+
+    /**
+     * 资源不再属于当前的重载，释放解码结果并移出缓存池
+     */
+    public synchronized void drop() {
+        dropped = true;
+        pool.remove(this);
+        release();
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    synchronized void evict() {
+        // 被选中回收后又被访问过，保留
+        if (dropped || pool.isResident(this)) {
+            return;
+        }
+        release();
+    }
+
+    private synchronized void completeDecode(@Nullable V decoded) {
+        decoding = false;
+        if (decoded == null) {
+            return;
+        }
+        // 解码期间资源被替换，或者已经同步解码过
+        if (dropped || value != null) {
+            releaser.accept(decoded);
+            return;
+        }
+        value = decoded;
+        pool.recordMiss(this);
+    }
+
+    private void release() {
+        if (value != null) {
+            releaser.accept(value);
+            value = null;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Decoder<V> {
+        V decode(byte[] source) throws IOException;
+    }
+}
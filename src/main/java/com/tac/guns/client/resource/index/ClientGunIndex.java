@@ -3,9 +3,10 @@ package com.tac.guns.client.resource.index;
 import com.google.common.collect.Maps;
 import com.tac.guns.client.animation.AnimationController;
 import com.tac.guns.client.animation.Animations;
-import com.tac.guns.client.animation.gltf.AnimationStructure;
+import com.tac.guns.client.animation.ObjectAnimation;
 import com.tac.guns.client.animation.internal.GunAnimationStateMachine;
 import com.tac.guns.client.model.BedrockGunModel;
+import com.tac.guns.client.model.bedrock.BedrockModelPose;
 import com.tac.guns.client.resource.ClientAssetManager;
 import com.tac.guns.resource.pojo.GunIndexPOJO;
 import com.tac.guns.client.resource.pojo.display.GunDisplay;
@@ -16,13 +17,20 @@ import com.tac.guns.client.resource.pojo.model.BedrockVersion;
 import com.tac.guns.item.nbt.GunItemData;
 import com.tac.guns.resource.CommonAssetManager;
 import com.tac.guns.resource.pojo.data.GunData;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.Util;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.texture.MissingTextureAtlasSprite;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.Entity;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -30,11 +38,42 @@ import java.util.Optional;
 
 public class ClientGunIndex {
     private static final String DEFAULT_TEXTURE_NAME = "default";
+    /**
+     * 实体超过这个时间没有访问自己的动画实例，实例就会被回收进池中，毫秒
+     */
+    private static final long ANIMATION_INSTANCE_IDLE_MILLIS = 10_000;
+    /**
+     * 池中最多保留的空闲状态机数量
+     */
+    private static final int MAX_POOLED_STATE_MACHINES = 8;
     private String name;
     @Nullable
     private String tooltip;
-    private BedrockGunModel gunModel;
-    private GunAnimationStateMachine animationStateMachine;
+    /**
+     * 模型和动画只在第一次渲染或访问状态机时创建，长时间不用会被回收，这里保存创建它们所需的数据
+     */
+    private BedrockModelPOJO modelPOJO;
+    private BedrockVersion modelVersion;
+    private RenderType modelRenderType;
+    private List<ObjectAnimation> animations;
+    @Nullable
+    private volatile BedrockGunModel gunModel;
+    /**
+     * 每个实体独立的动画状态机，键为实体 id。模型只作为共享的几何数据，动画写入各个状态机自己的姿态
+     */
+    private final Int2ObjectMap<AnimationInstance> animationInstances = new Int2ObjectOpenHashMap<>();
+    /**
+     * 回收的状态机，创建新的实例时优先复用
+     */
+    private final Deque<GunAnimationStateMachine> pooledStateMachines = new ArrayDeque<>();
+    /**
+     * 上一次访问模型或状态机的时间，毫秒
+     */
+    private volatile long lastAccessTime;
+    /**
+     * index 已经被重载替换或删除，不会再被访问，后台预热不能再为它创建模型
+     */
+    private boolean discarded;
     private Map<String, ResourceLocation> sounds;
     private GunTransform transform;
     private GunData gunData;
@@ -116,16 +155,19 @@ public class ClientGunIndex {
         RenderType renderType = RenderType.itemEntityTranslucentCull(defaultOptional.get().getLocation());
         // 先判断是不是 1.10.0 版本基岩版模型文件
         if (modelPOJO.getFormatVersion().equals(BedrockVersion.LEGACY.getVersion()) && modelPOJO.getGeometryModelLegacy() != null) {
-            index.gunModel = new BedrockGunModel(modelPOJO, BedrockVersion.LEGACY, renderType);
+            index.modelVersion = BedrockVersion.LEGACY;
         }
         // 判定是不是 1.12.0 版本基岩版模型文件
         if (modelPOJO.getFormatVersion().equals(BedrockVersion.NEW.getVersion()) && modelPOJO.getGeometryModelNew() != null) {
-            index.gunModel = new BedrockGunModel(modelPOJO, BedrockVersion.NEW, renderType);
+            index.modelVersion = BedrockVersion.NEW;
         }
 
-        if (index.gunModel == null) {
+        if (index.modelVersion == null) {
             throw new IllegalArgumentException("there is no model data in the model file");
         }
+        // 模型在第一次使用时才创建
+        index.modelPOJO = modelPOJO;
+        index.modelRenderType = renderType;
     }
 
     @NotNull
@@ -153,15 +195,13 @@ public class ClientGunIndex {
         if (location == null) {
             location = GunItemData.DEFAULT;
         }
-        // 目前支持的动画为 gltf 动画。此处从缓存取出 gltf 的动画资源。
-        AnimationStructure animations = ClientAssetManager.INSTANCE.getAnimations(location);
+        // 目前支持的动画为 gltf 动画。此处从缓存取出解码后的动画原型。
+        List<ObjectAnimation> animations = ClientAssetManager.INSTANCE.getAnimations(location);
         if (animations == null) {
             animations = Objects.requireNonNull(ClientAssetManager.INSTANCE.getAnimations(GunItemData.DEFAULT));
         }
-        // 用 gltf 动画资源创建动画控制器
-        AnimationController controller = Animations.createControllerFromGltf(animations, index.gunModel);
-        // 将动画控制器包装起来
-        index.animationStateMachine = new GunAnimationStateMachine(controller);
+        // 动画控制器在第一次访问状态机时才用动画原型创建
+        index.animations = animations;
     }
 
     private static void checkSounds(GunDisplay display, ClientGunIndex index) {
@@ -211,11 +251,109 @@ public class ClientGunIndex {
     }
 
     public BedrockGunModel getGunModel() {
+        lastAccessTime = Util.getMillis();
+        BedrockGunModel model = gunModel;
+        return model != null ? model : buildGunModel();
+    }
+
+    /**
+     * 获取实体自己的动画状态机，不同实体的动画互不影响
+     */
+    public GunAnimationStateMachine getAnimationStateMachine(Entity entity) {
+        return getAnimationStateMachine(entity.getId());
+    }
+
+    public synchronized GunAnimationStateMachine getAnimationStateMachine(int entityId) {
+        long now = Util.getMillis();
+        lastAccessTime = now;
+        AnimationInstance instance = animationInstances.get(entityId);
+        if (instance == null) {
+            GunAnimationStateMachine stateMachine = pooledStateMachines.poll();
+            instance = new AnimationInstance(stateMachine != null ? stateMachine : buildAnimationStateMachine());
+            animationInstances.put(entityId, instance);
+        }
+        instance.lastAccessTime = now;
+        return instance.stateMachine;
+    }
+
+    /**
+     * 提前创建模型和一个空闲的状态机，避免第一次掏出枪械时卡顿，可以在后台线程调用
+     */
+    public synchronized void prewarm() {
+        if (discarded) {
+            return;
+        }
+        // 预热也算作一次访问，否则下一次回收检查会立即释放刚创建的模型
+        lastAccessTime = Util.getMillis();
+        if (animationInstances.isEmpty() && pooledStateMachines.isEmpty()) {
+            pooledStateMachines.add(buildAnimationStateMachine());
+        }
+    }
+
+    /**
+     * 把长时间没有访问的动画实例回收进池中，并回收超过 idleMillis 没有使用的模型和动画，下一次访问时会重新创建
+     *
+     * @param idleMillis 小于等于 0 时不回收模型
+     * @return 是否回收了模型
+     */
+    public synchronized boolean evictIfIdle(long now, long idleMillis) {
+        recycleIdleInstances(now);
+        if (gunModel == null || idleMillis <= 0 || now - lastAccessTime < idleMillis) {
+            return false;
+        }
+        release();
+        return true;
+    }
+
+    private void recycleIdleInstances(long now) {
+        Iterator<AnimationInstance> iterator = animationInstances.values().iterator();
+        while (iterator.hasNext()) {
+            AnimationInstance instance = iterator.next();
+            if (now - instance.lastAccessTime < ANIMATION_INSTANCE_IDLE_MILLIS) {
+                continue;
+            }
+            iterator.remove();
+            if (pooledStateMachines.size() < MAX_POOLED_STATE_MACHINES) {
+                instance.stateMachine.reset();
+                pooledStateMachines.add(instance.stateMachine);
+            }
+        }
+    }
+
+    /**
+     * index 被重载替换或删除时调用，释放模型和动画，之后的预热不再生效
+     */
+    public synchronized void discard() {
+        discarded = true;
+        release();
+    }
+
+    /**
+     * 释放模型和动画，index 被回收时调用，下一次访问时会重新创建
+     */
+    public synchronized void release() {
+        BedrockGunModel model = gunModel;
+        if (model != null) {
+            model.release();
+        }
+        gunModel = null;
+        animationInstances.clear();
+        pooledStateMachines.clear();
+    }
+
+    private synchronized BedrockGunModel buildGunModel() {
+        if (gunModel == null) {
+            gunModel = new BedrockGunModel(modelPOJO, modelVersion, modelRenderType);
+        }
         return gunModel;
     }
 
-    public GunAnimationStateMachine getAnimationStateMachine() {
-        return animationStateMachine;
+    private synchronized GunAnimationStateMachine buildAnimationStateMachine() {
+        // 用动画原型创建写入独立姿态的动画控制器，并将动画控制器包装起来
+        BedrockGunModel model = buildGunModel();
+        BedrockModelPose pose = model.createPose();
+        AnimationController controller = Animations.createController(animations, model.createListenerSupplier(pose));
+        return new GunAnimationStateMachine(controller, pose);
     }
 
     public ResourceLocation getSounds(String name) {
@@ -233,4 +371,13 @@ public class ClientGunIndex {
     public GunData getGunData() {
         return gunData;
     }
+
+    private static class AnimationInstance {
+        private final GunAnimationStateMachine stateMachine;
+        private long lastAccessTime;
+
+        private AnimationInstance(GunAnimationStateMachine stateMachine) {
+            this.stateMachine = stateMachine;
+        }
+    }
 }
\ No newline at end of file
@@ -1,68 +1,133 @@
 package com.tac.guns.client.resource.loader;
 
+import com.google.gson.JsonParseException;
 import com.tac.guns.GunMod;
-import com.tac.guns.client.animation.gltf.AnimationStructure;
+import com.tac.guns.client.animation.AnimationCompactor;
+import com.tac.guns.client.animation.Animations;
+import com.tac.guns.client.animation.ObjectAnimation;
+import com.tac.guns.client.animation.gltf.GlbContainer;
+import com.tac.guns.client.animation.gltf.GltfStreamReader;
+import com.tac.guns.client.resource.AnimationCache;
 import com.tac.guns.client.resource.ClientAssetManager;
-import com.tac.guns.client.resource.pojo.animation.gltf.RawAnimationStructure;
-import com.tac.guns.util.TacPathVisitor;
+import com.tac.guns.config.ClientConfig;
+import com.tac.guns.resource.PackResource;
 import net.minecraft.resources.ResourceLocation;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
 
-import java.io.File;
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import static com.tac.guns.client.resource.ClientGunPackLoader.GSON;
 
 public final class AnimationLoader {
     private static final Marker MARKER = MarkerManager.getMarker("AnimationLoader");
-    private static final Pattern ANIMATION_PATTERN = Pattern.compile("^(\\w+)/animations/([\\w/]+)\\.gltf$");
 
-    public static boolean load(ZipFile zipFile, String zipPath) {
-        Matcher matcher = ANIMATION_PATTERN.matcher(zipPath);
-        if (matcher.find()) {
-            String namespace = matcher.group(1);
-            String path = matcher.group(2);
-            ZipEntry entry = zipFile.getEntry(zipPath);
-            if (entry == null) {
-                GunMod.LOGGER.warn(MARKER, "{} file don't exist", zipPath);
-                return false;
+    public static void load(ResourceLocation registryName, PackResource resource) {
+        try (InputStream animationFileStream = resource.open()) {
+            byte[] source = animationFileStream.readAllBytes();
+            Function<String, ByteBuffer> resolver = uri -> resolveBuffer(resource, uri);
+            // 文件内容没有变化时，直接从缓存读取解码好的关键帧，不需要读取 json
+            List<ObjectAnimation> animations = AnimationCache.load(source, resolver, () -> {
+                try {
+                    return parse(source, resource, resolver);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            ClientAssetManager.INSTANCE.putAnimation(registryName, animations);
+        } catch (IOException | UncheckedIOException | JsonParseException | IllegalArgumentException ioe) {
+            // 可能用来判定错误，打印下
+            GunMod.LOGGER.warn(MARKER, "Failed to load animation: {}", resource.getPath());
+            ioe.printStackTrace();
+        }
+    }
+
+    private static AnimationCache.Parsed parse(byte[] source, PackResource resource, Function<String, ByteBuffer> resolver) throws IOException {
+        // glb 文件的 json 和二进制数据分别在两个块中
+        GlbContainer glb = GlbContainer.isGlb(source) ? GlbContainer.parse(source) : null;
+        Map<String, ByteBuffer> externalBuffers = new LinkedHashMap<>();
+        List<ByteBuffer> buffers = loadBuffers(resource, glb, GltfStreamReader.readBufferUris(openJson(source, glb)), resolver, externalBuffers);
+        List<ObjectAnimation> animations = Animations.createPrototypesFromGltf(GltfStreamReader.read(openJson(source, glb), GSON, buffers));
+        return new AnimationCache.Parsed(compact(animations, resource), externalBuffers);
+    }
+
+    /**
+     * 压缩关键帧，并记录每个动画节省的内存
+     */
+    private static List<ObjectAnimation> compact(List<ObjectAnimation> animations, PackResource resource) {
+        float tolerance = ClientConfig.ANIMATION_KEYFRAME_TOLERANCE.get().floatValue();
+        boolean quantize = ClientConfig.QUANTIZE_ANIMATION_ROTATIONS.get();
+        long bytesSaved = 0;
+        for (ObjectAnimation animation : animations) {
+            AnimationCompactor.Report report = AnimationCompactor.compact(animation, tolerance, quantize);
+            bytesSaved += report.getBytesSaved();
+            GunMod.LOGGER.debug(MARKER, "Compacted animation {} in {}: {} -> {} key frames, {} -> {} bytes",
+                    report.animation(), resource.getPath(), report.keyframesBefore(), report.keyframesAfter(), report.bytesBefore(), report.bytesAfter());
+        }
+        GunMod.LOGGER.info(MARKER, "Compacted {} animations in {}, saved {} bytes", animations.size(), resource.getPath(), bytesSaved);
+        return animations;
+    }
+
+    private static InputStream openJson(byte[] source, @Nullable GlbContainer glb) {
+        return glb == null ? new ByteArrayInputStream(source) : glb.openJson();
+    }
+
+    /**
+     * 读取 gltf 引用的缓冲：glb 的第一个无 uri 缓冲使用 BIN 块，相对路径从同一个枪包中读取，内嵌的 base64 数据留空
+     *
+     * @param externalBuffers 记录读取过的外部缓冲，用于校验缓存
+     */
+    private static List<ByteBuffer> loadBuffers(PackResource resource, @Nullable GlbContainer glb, List<String> uris,
+                                                Function<String, ByteBuffer> resolver, Map<String, ByteBuffer> externalBuffers) {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < uris.size(); i++) {
+            String uri = uris.get(i);
+            if (uri == null) {
+                buffers.add(i == 0 && glb != null ? glb.getBinChunk() : null);
+                continue;
+            }
+            if (GltfStreamReader.isDataUri(uri)) {
+                buffers.add(null);
+                continue;
             }
-            try (InputStream animationFileStream = zipFile.getInputStream(entry)) {
-                ResourceLocation registryName = new ResourceLocation(namespace, path);
-                RawAnimationStructure rawStructure = GSON.fromJson(new InputStreamReader(animationFileStream, StandardCharsets.UTF_8), RawAnimationStructure.class);
-                ClientAssetManager.INSTANCE.putAnimation(registryName, new AnimationStructure(rawStructure));
-            } catch (IOException ioe) {
-                // 可能用来判定错误，打印下
-                GunMod.LOGGER.warn(MARKER, "Failed to load animation: {}", zipPath);
-                ioe.printStackTrace();
+            if (!externalBuffers.containsKey(uri)) {
+                ByteBuffer buffer = resolver.apply(uri);
+                if (buffer == null) {
+                    GunMod.LOGGER.warn(MARKER, "Missing animation buffer {} referenced by {}", uri, resource.getPath());
+                }
+                externalBuffers.put(uri, buffer);
             }
+            buffers.add(externalBuffers.get(uri));
         }
-        return false;
+        return buffers;
     }
 
-    public static void load(File root) throws IOException {
-        Path animationPath = root.toPath().resolve("animations");
-        if (Files.isDirectory(animationPath)) {
-            TacPathVisitor visitor = new TacPathVisitor(animationPath.toFile(), root.getName(), ".gltf", (id, file) -> {
-                try (InputStream animationFileStream = Files.newInputStream(file)) {
-                    RawAnimationStructure rawStructure = GSON.fromJson(new InputStreamReader(animationFileStream, StandardCharsets.UTF_8), RawAnimationStructure.class);
-                    ClientAssetManager.INSTANCE.putAnimation(id, new AnimationStructure(rawStructure));
-                } catch (IOException exception) {
-                    GunMod.LOGGER.warn(MARKER, "Failed to read animation file: {}", file);
-                    exception.printStackTrace();
-                }
-            });
-            Files.walkFileTree(animationPath, visitor);
+    /**
+     * 从同一个枪包中读取外部缓冲
+     *
+     * @return 文件不存在时返回 null
+     */
+    @Nullable
+    private static ByteBuffer resolveBuffer(PackResource resource, String uri) {
+        PackResource bufferResource = resource.resolve(URI.create(uri).getPath());
+        if (bufferResource == null) {
+            return null;
+        }
+        try {
+            return bufferResource.map();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 }
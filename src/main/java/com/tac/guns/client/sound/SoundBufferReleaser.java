@@ -0,0 +1,63 @@
+package com.tac.guns.client.sound;
+
+import com.mojang.blaze3d.audio.SoundBuffer;
+import com.tac.guns.mixin.client.SoundEngineAccessor;
+import com.tac.guns.mixin.client.SoundManagerAccessor;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 延迟删除枪声的 OpenAL 缓冲区。
+ * <p>
+ * 声音被回收或替换时，可能仍有声道正在播放同一个缓冲区。回收之后缓冲区不会再交给新的声道，
+ * 因此等待声音最长的播放时间过去后，再在声音线程中删除，不会与正在播放的声道或声音线程冲突
+ */
+public final class SoundBufferReleaser {
+    /**
+     * 枪声的最低音调，音调越低播放时间越长
+     */
+    private static final float MIN_PITCH = 0.5f;
+    private static final long MARGIN_MILLIS = 1000;
+    private static final PriorityQueue<Entry> PENDING = new PriorityQueue<>(Comparator.comparingLong(Entry::releaseTime));
+
+    private SoundBufferReleaser() {
+    }
+
+    /**
+     * 安排删除缓冲区，可以在任意线程调用
+     *
+     * @param durationMillis 声音按原始音调播放的时长
+     */
+    public static void schedule(SoundBuffer buffer, long durationMillis) {
+        long releaseTime = Util.getMillis() + (long) (durationMillis / MIN_PITCH) + MARGIN_MILLIS;
+        synchronized (PENDING) {
+            PENDING.add(new Entry(buffer, releaseTime));
+        }
+    }
+
+    /**
+     * 把已经到期的缓冲区交给声音线程删除，需要在主线程中调用
+     */
+    public static void tick() {
+        List<SoundBuffer> due = new ArrayList<>();
+        long now = Util.getMillis();
+        synchronized (PENDING) {
+            while (!PENDING.isEmpty() && PENDING.peek().releaseTime() <= now) {
+                due.add(PENDING.poll().buffer());
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        SoundManagerAccessor soundManager = (SoundManagerAccessor) Minecraft.getInstance().getSoundManager();
+        ((SoundEngineAccessor) soundManager.tac$getSoundEngine()).tac$getExecutor().execute(() -> due.forEach(SoundBuffer::discardAlBuffer));
+    }
+
+    private record Entry(SoundBuffer buffer, long releaseTime) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.tac.guns.client.sound;
 
+import com.tac.guns.client.resource.ClientAssetManager;
 import com.tac.guns.init.ModSounds;
 import net.minecraft.client.Minecraft;
 import net.minecraft.resources.ResourceLocation;
@@ -9,6 +10,8 @@ import net.minecraft.world.entity.LivingEntity;
 public class SoundPlayManager {
     public static void playClientSound(LivingEntity entity, ResourceLocation name, float volume, float pitch) {
         Minecraft minecraft = Minecraft.getInstance();
+        // 声音线程取用缓冲区时不会等待解码，被回收的声音需要提前解码
+        ClientAssetManager.INSTANCE.prefetchSoundBuffer(name);
         minecraft.getSoundManager().play(new GunSoundInstance(ModSounds.GUN.get(), SoundSource.PLAYERS, volume, pitch, entity, name));
     }
 }
\ No newline at end of file
@@ -23,11 +23,11 @@ public class ReloadCommand {
     }
 
     private static int reloadAllPack(CommandContext<CommandSourceStack> context) {
-        DistExecutor.safeRunWhenOn(Dist.CLIENT, () -> ReloadResourceEvent::reloadAllPack);
+        // 命令只重载发生了变化的文件
+        DistExecutor.safeRunWhenOn(Dist.CLIENT, () -> ReloadResourceEvent::reloadChangedPack);
         DistExecutor.safeRunWhenOn(Dist.DEDICATED_SERVER, () -> () -> {
             CommonGunPackLoader.init();
-            CommonGunPackLoader.reloadAsset();
-            CommonGunPackLoader.reloadIndex();
+            CommonGunPackLoader.reload(true);
         });
         context.getSource().sendSuccess(new TranslatableComponent("commands.tac.reload.success"), true);
         return Command.SINGLE_SUCCESS;
@@ -0,0 +1,50 @@
+package com.tac.guns.config;
+
+import net.minecraftforge.common.ForgeConfigSpec;
+
+public class ClientConfig {
+    public static ForgeConfigSpec.BooleanValue PREWARM_GUN_MODELS;
+    public static ForgeConfigSpec.IntValue GUN_MODEL_IDLE_SECONDS;
+    public static ForgeConfigSpec.BooleanValue GUN_MODEL_VERTEX_BUFFER;
+    public static ForgeConfigSpec.DoubleValue ANIMATION_KEYFRAME_TOLERANCE;
+    public static ForgeConfigSpec.BooleanValue QUANTIZE_ANIMATION_ROTATIONS;
+    public static ForgeConfigSpec.IntValue SOUND_CACHE_MEGABYTES;
+    public static ForgeConfigSpec.IntValue MODEL_CACHE_MEGABYTES;
+
+    public static ForgeConfigSpec init() {
+        ForgeConfigSpec.Builder builder = new ForgeConfigSpec.Builder();
+
+        builder.push("gun_model");
+
+        builder.comment("Build all gun models and animations in the background after the gun packs are loaded,",
+                "otherwise they are built the first time a gun is rendered");
+        PREWARM_GUN_MODELS = builder.define("PrewarmGunModels", false);
+
+        builder.comment("Release gun models and animations that have not been used for this many seconds, 0 to keep them forever");
+        GUN_MODEL_IDLE_SECONDS = builder.defineInRange("GunModelIdleSeconds", 300, 0, 86400);
+
+        builder.comment("Experimental: upload first person gun meshes to GPU vertex buffers once and only submit bone matrices each frame.",
+                "Translucent faces are not depth sorted on this path");
+        GUN_MODEL_VERTEX_BUFFER = builder.define("GunModelVertexBuffer", false);
+
+        builder.comment("Remove animation key frames that interpolating their neighbours reproduces within this error, 0 to keep all key frames");
+        ANIMATION_KEYFRAME_TOLERANCE = builder.defineInRange("AnimationKeyframeTolerance", 1.0E-4, 0, 0.1);
+
+        builder.comment("Round animation rotations to 48-bit quaternions, which halves their size in the animation cache");
+        QUANTIZE_ANIMATION_ROTATIONS = builder.define("QuantizeAnimationRotations", false);
+
+        builder.pop();
+
+        builder.push("asset_cache");
+
+        builder.comment("Memory budget for decoded gun sounds in MiB, least recently played sounds are decoded again when needed");
+        SOUND_CACHE_MEGABYTES = builder.defineInRange("SoundCacheMegabytes", 64, 1, 4096);
+
+        builder.comment("Memory budget for parsed gun model files in MiB, they are only needed while building gun models");
+        MODEL_CACHE_MEGABYTES = builder.defineInRange("ModelCacheMegabytes", 32, 1, 4096);
+
+        builder.pop();
+
+        return builder.build();
+    }
+}
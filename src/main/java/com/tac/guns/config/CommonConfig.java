@@ -0,0 +1,41 @@
+package com.tac.guns.config;
+
+import net.minecraftforge.common.ForgeConfigSpec;
+
+public class CommonConfig {
+    public static ForgeConfigSpec.BooleanValue WATCH_GUN_PACK;
+    public static ForgeConfigSpec.IntValue WATCH_DEBOUNCE_MS;
+    public static ForgeConfigSpec.BooleanValue STORE_NUMERIC_GUN_ID;
+    public static ForgeConfigSpec.IntValue MAX_REWIND_TICKS;
+    public static ForgeConfigSpec.DoubleValue SHOOT_AIM_TOLERANCE;
+
+    public static ForgeConfigSpec init() {
+        ForgeConfigSpec.Builder builder = new ForgeConfigSpec.Builder();
+
+        builder.push("gun_pack");
+
+        builder.comment("Watch the gun pack folder and reload changed files automatically, intended for pack authoring");
+        WATCH_GUN_PACK = builder.define("WatchGunPack", false);
+
+        builder.comment("How long the pack folder must stay quiet before the changes are reloaded, in milliseconds");
+        WATCH_DEBOUNCE_MS = builder.defineInRange("WatchDebounceMs", 500, 50, 10000);
+
+        builder.comment("Also store the compact numeric gun id in item NBT next to the gun id string, the string stays authoritative");
+        STORE_NUMERIC_GUN_ID = builder.define("StoreNumericGunId", false);
+
+        builder.pop();
+
+        builder.push("ballistics");
+
+        builder.comment("How many ticks shots may rewind entity hitboxes to match what the shooter saw, 0 to disable lag compensation");
+        MAX_REWIND_TICKS = builder.defineInRange("MaxRewindTicks", 10, 0, 40);
+
+        builder.comment("How far in degrees the aim reported with a shot may differ from the rotation the server knows,",
+                "beyond the turn made during the last tick. Shots aimed further away are pulled back into this window");
+        SHOOT_AIM_TOLERANCE = builder.defineInRange("ShootAimTolerance", 20.0, 0.0, 180.0);
+
+        builder.pop();
+
+        return builder.build();
+    }
+}
@@ -1,18 +1,36 @@
 package com.tac.guns.entity;
 
+import com.tac.guns.ballistic.BulletSimulation;
 import net.minecraft.network.protocol.Packet;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.damagesource.DamageSource;
+import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.MobCategory;
 import net.minecraft.world.entity.projectile.ThrowableProjectile;
+import net.minecraft.world.level.ClipContext;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.phys.EntityHitResult;
+import net.minecraft.world.phys.HitResult;
+import net.minecraft.world.phys.Vec3;
+import net.minecraftforge.event.ForgeEventFactory;
 import net.minecraftforge.network.NetworkHooks;
 
+import java.util.Optional;
+
 public class EntityBullet extends ThrowableProjectile {
     public static final EntityType<EntityBullet> TYPE = EntityType.Builder.<EntityBullet>of(EntityBullet::new, MobCategory.MISC)
             .sized(0.25F, 0.25F).clientTrackingRange(6).updateInterval(10).build("bullet");
+    /**
+     * 与 ProjectileUtil#getEntityHitResult 中目标碰撞箱的扩大量一致
+     */
+    private static final double TARGET_INFLATE = 0.3;
+
+    /**
+     * 实体命中判定回退的 tick 数，只在服务端使用，不保存
+     */
+    private int rewindTicks = 0;
 
     public EntityBullet(EntityType<? extends ThrowableProjectile> type, Level worldIn) {
         super(type, worldIn);
@@ -22,6 +40,14 @@ public class EntityBullet extends ThrowableProjectile {
         super(TYPE, throwerIn, worldIn);
     }
 
+    /**
+     * @param rewindTicks 命中判定回退的 tick 数
+     */
+    public EntityBullet(Level worldIn, LivingEntity throwerIn, int rewindTicks) {
+        super(TYPE, throwerIn, worldIn);
+        this.rewindTicks = rewindTicks;
+    }
+
     public EntityBullet(Level worldIn, double x, double y, double z) {
         super(TYPE, x, y, z, worldIn);
     }
@@ -32,12 +58,56 @@ public class EntityBullet extends ThrowableProjectile {
 
     @Override
     public void tick() {
+        if (rewindTicks > 0 && this.level instanceof ServerLevel serverLevel) {
+            hitRewoundEntity(serverLevel);
+        }
         super.tick();
         if (this.tickCount > 100) {
             this.discard();
         }
     }
 
+    @Override
+    protected boolean canHitEntity(Entity entity) {
+        // 服务端回退判定的子弹由 hitRewoundEntity 负责实体命中，原版的判定只处理方块
+        return (rewindTicks <= 0 || this.level.isClientSide) && super.canHitEntity(entity);
+    }
+
+    /**
+     * 与原版的实体命中判定一致，但使用 rewindTicks 之前的碰撞箱，方块碰撞仍然使用当前的世界
+     */
+    private void hitRewoundEntity(ServerLevel level) {
+        Vec3 start = this.position();
+        Vec3 motion = this.getDeltaMovement();
+        Vec3 end = start.add(motion);
+        HitResult blockHit = level.clip(new ClipContext(start, end, ClipContext.Block.COLLIDER, ClipContext.Fluid.NONE, this));
+        if (blockHit.getType() != HitResult.Type.MISS) {
+            end = blockHit.getLocation();
+        }
+        // 回退前的位置可能在当前弹道范围之外，按每 tick 最多移动 1 格扩大查询范围
+        double margin = 1 + rewindTicks;
+        Entity target = null;
+        Vec3 targetHit = null;
+        double nearest = Double.MAX_VALUE;
+        for (Entity entity : level.getEntities(this, this.getBoundingBox().expandTowards(motion).inflate(margin), super::canHitEntity)) {
+            Optional<Vec3> hit = BulletSimulation.getRewoundBoundingBox(level, entity, rewindTicks).inflate(TARGET_INFLATE).clip(start, end);
+            if (hit.isPresent()) {
+                double distance = start.distanceToSqr(hit.get());
+                if (distance < nearest) {
+                    target = entity;
+                    targetHit = hit.get();
+                    nearest = distance;
+                }
+            }
+        }
+        if (target != null) {
+            EntityHitResult result = new EntityHitResult(target, targetHit);
+            if (!ForgeEventFactory.onProjectileImpact(this, result)) {
+                this.onHit(result);
+            }
+        }
+    }
+
     @Override
     protected void onHitEntity(EntityHitResult result) {
         if (result.getEntity() instanceof LivingEntity livingEntity) {
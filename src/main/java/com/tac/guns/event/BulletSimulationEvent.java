@@ -0,0 +1,29 @@
+package com.tac.guns.event;
+
+import com.tac.guns.GunMod;
+import com.tac.guns.ballistic.BulletSimulation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 每个世界 tick 结束时统一推进该世界的模拟子弹
+ */
+@Mod.EventBusSubscriber(modid = GunMod.MOD_ID)
+public class BulletSimulationEvent {
+    @SubscribeEvent
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && event.world instanceof ServerLevel level) {
+            BulletSimulation.tick(level);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof ServerLevel level) {
+            BulletSimulation.remove(level);
+        }
+    }
+}
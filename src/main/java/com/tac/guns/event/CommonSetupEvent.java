@@ -1,18 +1,33 @@
 package com.tac.guns.event;
 
 import com.tac.guns.GunMod;
+import com.tac.guns.config.CommonConfig;
 import com.tac.guns.resource.CommonGunPackLoader;
+import com.tac.guns.resource.PackWatcher;
+import net.minecraft.server.MinecraftServer;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
+import net.minecraftforge.server.ServerLifecycleHooks;
 
 @Mod.EventBusSubscriber(value = Dist.DEDICATED_SERVER, modid = GunMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.MOD)
 public class CommonSetupEvent {
     @SubscribeEvent
     public static void loadGunPack(FMLCommonSetupEvent commonSetupEvent){
         CommonGunPackLoader.init();
-        CommonGunPackLoader.reloadAsset();
-        CommonGunPackLoader.reloadIndex();
+        CommonGunPackLoader.reload(false);
+        if (CommonConfig.WATCH_GUN_PACK.get()) {
+            // 解析在监视线程中完成，只有发布资源和重建 index 交给服务端主线程
+            PackWatcher.start(CommonGunPackLoader.FOLDER, CommonConfig.WATCH_DEBOUNCE_MS.get(), () -> {
+                Runnable apply = CommonGunPackLoader.prepareReload(true);
+                MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+                if (server != null) {
+                    server.submit(apply).join();
+                } else {
+                    apply.run();
+                }
+            });
+        }
     }
 }
@@ -0,0 +1,29 @@
+package com.tac.guns.event;
+
+import com.tac.guns.GunMod;
+import com.tac.guns.network.ShootBroadcaster;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 每个世界 tick 结束时把该世界本 tick 的开火合并发给附近的玩家
+ */
+@Mod.EventBusSubscriber(modid = GunMod.MOD_ID)
+public class ShootBroadcastEvent {
+    @SubscribeEvent
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && event.world instanceof ServerLevel level) {
+            ShootBroadcaster.flush(level);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof ServerLevel level) {
+            ShootBroadcaster.remove(level);
+        }
+    }
+}
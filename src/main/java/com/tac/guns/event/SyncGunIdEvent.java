@@ -0,0 +1,20 @@
+package com.tac.guns.event;
+
+import com.tac.guns.GunMod;
+import com.tac.guns.network.NetworkHandler;
+import com.tac.guns.network.message.ServerMessageSyncGunIds;
+import com.tac.guns.resource.GunIdRegistry;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 玩家登录时同步服务端的枪械数字 id 表
+ */
+@Mod.EventBusSubscriber(modid = GunMod.MOD_ID)
+public class SyncGunIdEvent {
+    @SubscribeEvent
+    public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        NetworkHandler.sendToClientPlayer(new ServerMessageSyncGunIds(GunIdRegistry.SERVER.toArray()), event.getPlayer());
+    }
+}
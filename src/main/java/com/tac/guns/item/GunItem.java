@@ -2,6 +2,7 @@ package com.tac.guns.item;
 
 import com.tac.guns.api.gun.FireMode;
 import com.tac.guns.api.item.IGun;
+import com.tac.guns.ballistic.BulletSimulation;
 import com.tac.guns.client.renderer.tileentity.TileEntityItemStackGunRenderer;
 import com.tac.guns.client.resource.ClientGunPackLoader;
 import com.tac.guns.client.resource.index.ClientGunIndex;
@@ -10,12 +11,13 @@ import com.tac.guns.init.ModItems;
 import com.tac.guns.item.nbt.GunItemData;
 import com.tac.guns.resource.CommonGunPackLoader;
 import com.tac.guns.resource.index.CommonGunIndex;
+import com.tac.guns.resource.pojo.data.GunBulletData;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.BlockEntityWithoutLevelRenderer;
 import net.minecraft.core.NonNullList;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.TranslatableComponent;
-import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.item.CreativeModeTab;
 import net.minecraft.world.item.Item;
@@ -34,9 +36,12 @@ public class GunItem extends Item implements IGun {
         super(new Properties().stacksTo(1).tab(ModItems.GUN_TAB));
     }
 
+    /**
+     * 获取枪械物品的数据。返回的是缓存的共享对象，不能直接修改，需要修改时使用 {@link GunItemData#copy()}
+     */
     public static @Nonnull GunItemData getData(@Nonnull ItemStack itemStack) {
         if (IGun.isGun(itemStack)) {
-            return GunItemData.deserialization(itemStack.getOrCreateTag());
+            return GunItemData.cached(itemStack.getOrCreateTag());
         }
         return new GunItemData();
     }
@@ -52,8 +57,7 @@ public class GunItem extends Item implements IGun {
     @Nonnull
     @OnlyIn(Dist.CLIENT)
     public Component getName(@Nonnull ItemStack stack) {
-        ResourceLocation gunId = getData(stack).getGunId();
-        Optional<ClientGunIndex> gunIndex = ClientGunPackLoader.getGunIndex(gunId);
+        Optional<ClientGunIndex> gunIndex = ClientGunPackLoader.getGunIndex(getData(stack));
         if (gunIndex.isPresent()) {
             return new TranslatableComponent(gunIndex.get().getName());
         }
@@ -98,15 +102,20 @@ public class GunItem extends Item implements IGun {
     }
 
     @Override
-    public void shoot(LivingEntity shooter, ItemStack gun, float pitch, float yaw) {
-        ResourceLocation gunId = GunItem.getData(gun).getGunId();
-        Optional<CommonGunIndex> gunIndexOptional = CommonGunPackLoader.getGunIndex(gunId);
+    public void shoot(LivingEntity shooter, ItemStack gun, float pitch, float yaw, int rewindTicks) {
+        Optional<CommonGunIndex> gunIndexOptional = CommonGunPackLoader.getGunIndex(GunItem.getData(gun));
         if (gunIndexOptional.isEmpty()) {
             return;
         }
-        // todo 获取 GunData 并根据其中的弹道参数创建 EntityBullet
         Level world = shooter.getLevel();
-        EntityBullet bullet = new EntityBullet(world, shooter);
+        GunBulletData bulletData = gunIndexOptional.get().getGunData().getBulletData();
+        // 枪包选择了批量弹道模拟的枪械不生成子弹实体
+        if (bulletData.isSimulated() && world instanceof ServerLevel serverLevel) {
+            BulletSimulation.get(serverLevel).spawn(shooter, pitch, yaw, bulletData, rewindTicks);
+            return;
+        }
+        // todo 根据 GunData 中的弹道参数创建 EntityBullet
+        EntityBullet bullet = new EntityBullet(world, shooter, rewindTicks);
         bullet.shootFromRotation(bullet, pitch, yaw, 0.0F, 10, 0);
         world.addFreshEntity(bullet);
     }
@@ -1,38 +1,140 @@
 package com.tac.guns.item.nbt;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
 import com.tac.guns.GunMod;
 import com.tac.guns.api.gun.FireMode;
+import com.tac.guns.config.CommonConfig;
+import com.tac.guns.resource.GunIdRegistry;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.resources.ResourceLocation;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Map;
 
 public class GunItemData {
     public static final ResourceLocation DEFAULT = new ResourceLocation(GunMod.MOD_ID, "ak47");
     public static final ResourceLocation DEFAULT_DISPLAY = new ResourceLocation(GunMod.MOD_ID, "ak47_display");
     public static final String GUN_ID_TAG = "GunId";
     public static final String GUN_FIRE_MODE_TAG = "GunFireMode";
+    /**
+     * 可选的数字 id，只是加快查找的提示，与 GunId 不一致时忽略
+     */
+    public static final String GUN_NUMERIC_ID_TAG = "GunNumericId";
+    private static final FireMode[] FIRE_MODES = FireMode.values();
+    /**
+     * 每个物品 NBT 对应的缓存数据。弱引用、按对象地址比较，NBT 被回收后缓存随之失效
+     */
+    private static final Cache<CompoundTag, GunItemData> CACHE = CacheBuilder.newBuilder().weakKeys().build();
+    /**
+     * 驻留的枪械 id，同一个 id 字符串只解析一次。
+     * 只驻留数字 id 表中存在的枪械，NBT 里任意写入的 id 不会进入这里，数量不超过加载过的枪械数量
+     */
+    private static final Map<String, ResourceLocation> GUN_IDS = Maps.newConcurrentMap();
+    private static final Map<String, FireMode> FIRE_MODE_NAMES = Maps.newHashMap();
+
+    static {
+        for (FireMode fireMode : FIRE_MODES) {
+            FIRE_MODE_NAMES.put(fireMode.name(), fireMode);
+        }
+    }
+
     @Nullable
     private ResourceLocation gunId = null;
-    private FireMode fireMode = FireMode.SEMI;
+    private byte fireMode = (byte) FireMode.SEMI.ordinal();
+    /**
+     * 枪械在当前逻辑端数字 id 表中的 id，没有分配时为 -1
+     */
+    private int numericId = -1;
+    private int registryVersion = -1;
+    /**
+     * 生成缓存时读取的 NBT 节点。修改 NBT 会替换节点对象，地址不同即说明缓存已经过期
+     */
+    @Nullable
+    private Tag sourceGunId;
+    @Nullable
+    private Tag sourceFireMode;
+    @Nullable
+    private Tag sourceNumericId;
+    /**
+     * 是否为 {@link #cached(CompoundTag)} 返回的共享对象，共享对象不允许修改
+     */
+    private boolean shared = false;
 
     public static void serialization(@Nonnull CompoundTag nbt, @Nonnull GunItemData data) {
         if (data.gunId != null) {
             nbt.putString(GUN_ID_TAG, data.gunId.toString());
+            int numericId = CommonConfig.STORE_NUMERIC_GUN_ID.get() ? GunIdRegistry.current().getNumericId(data.gunId) : -1;
+            if (numericId >= 0) {
+                nbt.putInt(GUN_NUMERIC_ID_TAG, numericId);
+            } else {
+                nbt.remove(GUN_NUMERIC_ID_TAG);
+            }
         }
-        nbt.putString(GUN_FIRE_MODE_TAG, data.fireMode.name());
+        nbt.putString(GUN_FIRE_MODE_TAG, data.getFireMode().name());
     }
 
     public static @Nonnull GunItemData deserialization(@Nonnull CompoundTag nbt) {
         GunItemData data = new GunItemData();
-        if (nbt.contains(GUN_ID_TAG, Tag.TAG_STRING)) {
-            data.gunId = ResourceLocation.tryParse(nbt.getString(GUN_ID_TAG));
+        data.sourceGunId = nbt.get(GUN_ID_TAG);
+        data.sourceFireMode = nbt.get(GUN_FIRE_MODE_TAG);
+        if (data.sourceGunId != null && data.sourceGunId.getId() == Tag.TAG_STRING) {
+            data.gunId = internGunId(data.sourceGunId.getAsString());
         }
-        if (nbt.contains(GUN_FIRE_MODE_TAG, Tag.TAG_STRING)) {
-            data.fireMode = FireMode.valueOf(nbt.getString(GUN_FIRE_MODE_TAG));
+        if (data.sourceFireMode != null && data.sourceFireMode.getId() == Tag.TAG_STRING) {
+            FireMode fireMode = FIRE_MODE_NAMES.get(data.sourceFireMode.getAsString());
+            if (fireMode != null) {
+                data.fireMode = (byte) fireMode.ordinal();
+            }
         }
+        GunIdRegistry registry = GunIdRegistry.current();
+        data.registryVersion = registry.getVersion();
+        data.sourceNumericId = nbt.get(GUN_NUMERIC_ID_TAG);
+        if (data.sourceNumericId instanceof IntTag numericIdTag && data.getGunId().equals(registry.getGunId(numericIdTag.getAsInt()))) {
+            data.numericId = numericIdTag.getAsInt();
+        } else {
+            data.numericId = registry.getNumericId(data.getGunId());
+        }
+        return data;
+    }
+
+    /**
+     * 获取 NBT 对应的缓存数据，NBT 和数字 id 表都没有变化时不做任何解析和分配。
+     * <p>
+     * 返回的对象会被共享，不能修改；需要修改时先调用 {@link #copy()}，再用 {@link #serialization(CompoundTag, GunItemData)} 写回
+     */
+    public static @Nonnull GunItemData cached(@Nonnull CompoundTag nbt) {
+        GunItemData data = CACHE.getIfPresent(nbt);
+        if (data != null && data.sourceGunId == nbt.get(GUN_ID_TAG) && data.sourceFireMode == nbt.get(GUN_FIRE_MODE_TAG)
+                && data.sourceNumericId == nbt.get(GUN_NUMERIC_ID_TAG) && data.registryVersion == GunIdRegistry.current().getVersion()) {
+            return data;
+        }
+        data = deserialization(nbt);
+        data.shared = true;
+        CACHE.put(nbt, data);
+        return data;
+    }
+
+    private static ResourceLocation internGunId(String id) {
+        ResourceLocation gunId = GUN_IDS.get(id);
+        if (gunId == null) {
+            gunId = ResourceLocation.tryParse(id);
+            if (gunId != null && (GunIdRegistry.SERVER.getNumericId(gunId) >= 0 || GunIdRegistry.CLIENT.getNumericId(gunId) >= 0)) {
+                GUN_IDS.put(id, gunId);
+            }
+        }
+        return gunId;
+    }
+
+    public GunItemData copy() {
+        GunItemData data = new GunItemData();
+        data.gunId = this.gunId;
+        data.fireMode = this.fireMode;
+        data.numericId = this.numericId;
         return data;
     }
 
@@ -45,14 +147,30 @@ public class GunItemData {
     }
 
     public void setGunId(@Nullable ResourceLocation gunId) {
+        checkNotShared();
         this.gunId = gunId;
+        this.numericId = -1;
+    }
+
+    /**
+     * @return 枪械在当前逻辑端数字 id 表中的 id，没有分配时返回 -1
+     */
+    public int getNumericId() {
+        return numericId;
     }
 
     public FireMode getFireMode() {
-        return fireMode;
+        return FIRE_MODES[fireMode];
     }
 
     public void setFireMode(FireMode fireMode) {
-        this.fireMode = fireMode;
+        checkNotShared();
+        this.fireMode = (byte) fireMode.ordinal();
+    }
+
+    private void checkNotShared() {
+        if (shared) {
+            throw new IllegalStateException("Cached GunItemData is shared, call copy() before modifying it");
+        }
     }
 }
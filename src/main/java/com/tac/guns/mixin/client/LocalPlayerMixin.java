@@ -3,98 +3,142 @@ package com.tac.guns.mixin.client;
 import com.tac.guns.api.client.player.IClientPlayerGunOperator;
 import com.tac.guns.api.event.GunFireSelectEvent;
 import com.tac.guns.api.event.GunShootEvent;
+import com.tac.guns.api.gun.FireMode;
 import com.tac.guns.api.gun.ShootResult;
 import com.tac.guns.api.item.IGun;
 import com.tac.guns.client.animation.internal.GunAnimationStateMachine;
 import com.tac.guns.client.resource.ClientGunPackLoader;
+import com.tac.guns.client.resource.index.ClientGunIndex;
 import com.tac.guns.client.sound.SoundPlayManager;
 import com.tac.guns.item.GunItem;
 import com.tac.guns.network.NetworkHandler;
 import com.tac.guns.network.message.ClientMessagePlayerFireSelect;
 import com.tac.guns.network.message.ClientMessagePlayerShoot;
-import net.minecraft.client.Minecraft;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
 import net.minecraft.client.player.LocalPlayer;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.LogicalSide;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Unique;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 @Mixin(LocalPlayer.class)
 public class LocalPlayerMixin implements IClientPlayerGunOperator {
+    /**
+     * 一个 tick 的长度，纳秒。开火冷却剩余不超过一个 tick 时，就提前把这一 tick 内的开火发给服务器
+     */
     @Unique
-    private static final ScheduledExecutorService tac$ScheduledExecutorService = Executors.newScheduledThreadPool(1);
+    private static final long TAC$TICK_NANOS = 50_000_000L;
 
+    /**
+     * 单次调用 shoot 最多安排的开火次数，防止异常的射速数据一次排入过多开火
+     */
     @Unique
-    private long tac$ShootTimestamp = -1L;
+    private static final int TAC$MAX_SHOTS_PER_CALL = 20;
 
+    /**
+     * 下一发子弹允许开火的时间，以 System.nanoTime 计。按射击间隔累加，保留不足一个 tick 的余量
+     */
     @Unique
-    private long tac$DrawTimestamp = -1L;
+    private long tac$NextShootNanos = Long.MIN_VALUE;
 
+    /**
+     * 已经通知服务器、但开火效果还没到时间的开火，由渲染线程按时间顺序执行。两个队列一一对应
+     */
     @Unique
-    private long tac$ReloadTimestamp = -1L;
+    private final LongArrayFIFOQueue tac$ScheduledShootNanos = new LongArrayFIFOQueue();
+
+    @Unique
+    private final Deque<ClientGunIndex> tac$ScheduledShootGuns = new ArrayDeque<>();
 
+    /**
+     * 开火序号，服务端据此忽略重复的开火。切换维度时 LocalPlayer 会重新创建，而服务端的玩家不变，所以序号是静态的
+     */
     @Unique
-    private boolean tac$IsRecorded = true;
+    private static int TAC$SHOOT_SEQUENCE = 0;
+
+    @Unique
+    private long tac$DrawTimestamp = -1L;
+
+    @Unique
+    private long tac$ReloadTimestamp = -1L;
 
     @Override
     public ShootResult shoot() {
-        // 如果上一次异步开火的效果还未执行，则直接返回，等待异步开火效果执行
-        if (!tac$IsRecorded) {
-            return ShootResult.COOL_DOWN;
-        }
         // todo 判断是否在装弹
         // todo 判断是否在 draw
         LocalPlayer player = (LocalPlayer) (Object) this;
-        if (IGun.mainhandHoldGun(player)) {
-            ResourceLocation gunId = GunItem.getData(player.getMainHandItem()).getGunId();
-            ClientGunPackLoader.getGunIndex(gunId).ifPresent(gunIndex -> {
-                long shootCoolDown = gunIndex.getGunData().getShootInterval() - (System.currentTimeMillis() - tac$ShootTimestamp);
-                // 如果开火冷却时间剩余大于 1 个 tick (即 50 ms)，则不能开火。
-                if (shootCoolDown > 50) {
-                    return;
-                }
-                // 如果开火冷却时间剩余小于 1 个 tick ，则认为玩家已经开火。
-                // 触发开火事件
-                if (MinecraftForge.EVENT_BUS.post(new GunShootEvent(player, player.getMainHandItem(), LogicalSide.CLIENT))) {
-                    return;
-                }
-                // 发送开火的数据包，通知服务器
-                NetworkHandler.CHANNEL.sendToServer(new ClientMessagePlayerShoot());
-                tac$IsRecorded = false;
-                // 开火效果需要延时执行，这样渲染效果更好。
-                tac$ScheduledExecutorService.schedule(() -> {
-                    // 记录新的开火时间戳
-                    tac$ShootTimestamp = System.currentTimeMillis();
-                    // 转换 isRecord 状态，允许下一个tick的开火检测。
-                    tac$IsRecorded = true;
-                    // 动画状态机转移状态
-                    GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine();
-                    if (animationStateMachine != null) {
-                        animationStateMachine.onGunShoot();
-                    }
-                    // 播放声音、摄像机后坐需要从异步线程上传到主线程执行。
-                    Minecraft.getInstance().submitAsync(() -> {
-                        SoundPlayManager.playClientSound(player, gunIndex.getSounds("shoot"), 1.0f, 0.8f);
-                        player.setXRot(player.getXRot() - 0.5f);
-                    });
-                }, shootCoolDown, TimeUnit.MILLISECONDS);
-            });
+        if (!IGun.mainhandHoldGun(player)) {
+            return ShootResult.FAIL;
+        }
+        Optional<ClientGunIndex> gunIndexOptional = ClientGunPackLoader.getGunIndex(GunItem.getData(player.getMainHandItem()));
+        if (gunIndexOptional.isEmpty()) {
+            return ShootResult.FAIL;
+        }
+        ClientGunIndex gunIndex = gunIndexOptional.get();
+        long interval = TimeUnit.MILLISECONDS.toNanos(gunIndex.getGunData().getShootInterval());
+        long now = System.nanoTime();
+        // 停火超过一个射击间隔后，不再保留累计的余量，避免重新开火时一次补发多发
+        if (tac$NextShootNanos == Long.MIN_VALUE || now - tac$NextShootNanos > interval) {
+            tac$NextShootNanos = now;
+        }
+        // 全自动时，把这一 tick 内到时间的开火全部排入，高射速下一个 tick 可以开火多次
+        int maxShots = IGun.getMainhandFireMode(player) == FireMode.AUTO ? TAC$MAX_SHOTS_PER_CALL : 1;
+        // 这一 tick 内的开火合并为一个数据包
+        ClientMessagePlayerShoot message = new ClientMessagePlayerShoot(TAC$SHOOT_SEQUENCE, player.level.getGameTime());
+        int shots = 0;
+        // 如果开火冷却时间剩余大于 1 个 tick ，则不能开火。
+        while (shots < maxShots && tac$NextShootNanos - now <= TAC$TICK_NANOS) {
+            // 触发开火事件
+            if (MinecraftForge.EVENT_BUS.post(new GunShootEvent(player, player.getMainHandItem(), LogicalSide.CLIENT))) {
+                break;
+            }
+            if (!message.addShot(player.getXRot(), player.getYRot(), TimeUnit.NANOSECONDS.toMillis(tac$NextShootNanos))) {
+                break;
+            }
+            TAC$SHOOT_SEQUENCE++;
+            // 开火效果需要等冷却结束时再执行，这样渲染效果更好。
+            tac$ScheduledShootNanos.enqueue(tac$NextShootNanos);
+            tac$ScheduledShootGuns.add(gunIndex);
+            tac$NextShootNanos += interval;
+            shots++;
+        }
+        // 发送开火的数据包，通知服务器
+        if (shots > 0) {
+            NetworkHandler.CHANNEL.sendToServer(message);
+        }
+        return shots > 0 ? ShootResult.SUCCESS : ShootResult.COOL_DOWN;
+    }
+
+    @Override
+    public void updateShoot() {
+        LocalPlayer player = (LocalPlayer) (Object) this;
+        long now = System.nanoTime();
+        // 一帧内到时间的开火效果全部按顺序执行，帧率低于射速时也不会丢失开火
+        while (!tac$ScheduledShootNanos.isEmpty() && tac$ScheduledShootNanos.firstLong() - now <= 0) {
+            tac$ScheduledShootNanos.dequeueLong();
+            ClientGunIndex gunIndex = tac$ScheduledShootGuns.poll();
+            // 动画状态机转移状态
+            GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine(player);
+            if (animationStateMachine != null) {
+                animationStateMachine.onGunShoot();
+            }
+            // 播放声音、摄像机后坐
+            SoundPlayManager.playClientSound(player, gunIndex.getSounds("shoot"), 1.0f, 0.8f);
+            player.setXRot(player.getXRot() - 0.5f);
         }
-        return ShootResult.FAIL;
     }
 
     @Override
     public void draw() {
         LocalPlayer player = (LocalPlayer) (Object) this;
         // todo 重置各个状态
-        ResourceLocation gunId = GunItem.getData(player.getMainHandItem()).getGunId();
-        ClientGunPackLoader.getGunIndex(gunId).ifPresent(gunIndex -> {
-            GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine();
+        ClientGunPackLoader.getGunIndex(GunItem.getData(player.getMainHandItem())).ifPresent(gunIndex -> {
+            GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine(player);
             if (animationStateMachine != null) {
                 animationStateMachine.onGunDraw();
             }
@@ -104,9 +148,8 @@ public class LocalPlayerMixin implements IClientPlayerGunOperator {
     @Override
     public void reload() {
         LocalPlayer player = (LocalPlayer) (Object) this;
-        ResourceLocation gunId = GunItem.getData(player.getMainHandItem()).getGunId();
-        ClientGunPackLoader.getGunIndex(gunId).ifPresent(gunIndex -> {
-            GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine();
+        ClientGunPackLoader.getGunIndex(GunItem.getData(player.getMainHandItem())).ifPresent(gunIndex -> {
+            GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine(player);
             if (animationStateMachine != null) {
                 animationStateMachine.onGunReload();
             }
@@ -121,9 +164,8 @@ public class LocalPlayerMixin implements IClientPlayerGunOperator {
         // todo 检测是否在装弹
         // todo 检测是否在切枪
         // todo 检测是否在检视
-        ResourceLocation gunId = GunItem.getData(player.getMainHandItem()).getGunId();
-        ClientGunPackLoader.getGunIndex(gunId).ifPresent(gunIndex -> {
-            GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine();
+        ClientGunPackLoader.getGunIndex(GunItem.getData(player.getMainHandItem())).ifPresent(gunIndex -> {
+            GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine(player);
             if (animationStateMachine != null) {
                 animationStateMachine.onGunInspect();
             }
@@ -135,15 +177,14 @@ public class LocalPlayerMixin implements IClientPlayerGunOperator {
         // TODO 冷却时间检查，得让动画播放完毕才行
         LocalPlayer player = (LocalPlayer) (Object) this;
         if (IGun.mainhandHoldGun(player)) {
-            ResourceLocation gunId = GunItem.getData(player.getMainHandItem()).getGunId();
-            ClientGunPackLoader.getGunIndex(gunId).ifPresent(gunIndex -> {
+            ClientGunPackLoader.getGunIndex(GunItem.getData(player.getMainHandItem())).ifPresent(gunIndex -> {
                 if (MinecraftForge.EVENT_BUS.post(new GunFireSelectEvent(player, player.getMainHandItem(), LogicalSide.CLIENT))) {
                     return;
                 }
                 // 发送切换开火模式的数据包，通知服务器
                 NetworkHandler.CHANNEL.sendToServer(new ClientMessagePlayerFireSelect());
                 // 动画状态机转移状态
-                GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine();
+                GunAnimationStateMachine animationStateMachine = gunIndex.getAnimationStateMachine(player);
                 if (animationStateMachine != null) {
                     animationStateMachine.onGunFireSelect();
                 }
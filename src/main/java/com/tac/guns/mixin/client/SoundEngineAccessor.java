@@ -0,0 +1,12 @@
+package com.tac.guns.mixin.client;
+
+import net.minecraft.client.sounds.SoundEngine;
+import net.minecraft.client.sounds.SoundEngineExecutor;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(SoundEngine.class)
+public interface SoundEngineAccessor {
+    @Accessor("executor")
+    SoundEngineExecutor tac$getExecutor();
+}
@@ -4,13 +4,16 @@ import com.tac.guns.api.entity.IGunOperator;
 import com.tac.guns.api.gun.FireMode;
 import com.tac.guns.api.gun.ShootResult;
 import com.tac.guns.api.item.IGun;
+import com.tac.guns.config.CommonConfig;
 import com.tac.guns.item.GunItem;
 import com.tac.guns.item.nbt.GunItemData;
+import com.tac.guns.network.ShootBroadcaster;
 import com.tac.guns.resource.CommonGunPackLoader;
 import com.tac.guns.resource.index.CommonGunIndex;
 import com.tac.guns.resource.pojo.data.GunData;
 import net.minecraft.nbt.CompoundTag;
-import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.item.ItemStack;
 import org.spongepowered.asm.mixin.Mixin;
@@ -28,9 +31,46 @@ public abstract class LivingEntityMixin implements IGunOperator {
     @Shadow
     public abstract void readAdditionalSaveData(CompoundTag pCompound);
 
+    /**
+     * 判断射击冷却时允许的误差，毫秒。射击间隔和客户端时间都只精确到毫秒
+     */
+    @Unique
+    private static final long TAC$SHOOT_TOLERANCE_MS = 5L;
+
+    /**
+     * 距离上一次客户端开火超过这个时间，毫秒，就重新估计客户端与服务端的时间差
+     */
+    @Unique
+    private static final long TAC$CLOCK_RESYNC_MS = 1000L;
+
+    /**
+     * 客户端开火时间最多可以超前服务端的时间，毫秒。客户端会提前一个 tick 发出这一 tick 内的开火
+     */
+    @Unique
+    private static final long TAC$MAX_LEAD_MS = 50L;
+
+    /**
+     * 上一次开火按射速应当发生的时间。开火提前了误差范围内的时间时，仍然按应当发生的时间记录，
+     * 这样误差不会逐发累积，射速不会超过枪械的射速
+     */
     @Unique
     private long tac$ShootTimestamp = -1L;
 
+    @Unique
+    private int tac$LastShootSequence = 0;
+
+    @Unique
+    private boolean tac$HasShootSequence = false;
+
+    /**
+     * 服务端时间减去客户端时间的最小值，即网络延迟最小时的时间差，用于把客户端的开火时间换算为服务端时间
+     */
+    @Unique
+    private long tac$ClientClockOffset = 0L;
+
+    @Unique
+    private long tac$LastClientShootReceived = Long.MIN_VALUE;
+
     @Unique
     private long tac$DrawTimestamp = -1L;
 
@@ -48,34 +88,75 @@ public abstract class LivingEntityMixin implements IGunOperator {
     }
 
     @Override
-    public ShootResult shoot(ItemStack gunItemStack, float pitch, float yaw) {
+    public ShootResult shoot(ItemStack gunItemStack, float pitch, float yaw, int rewindTicks, long timestamp) {
         // 获取GunData
-        ResourceLocation gunId = GunItem.getData(gunItemStack).getGunId();
-        Optional<CommonGunIndex> gunIndexOptional = CommonGunPackLoader.getGunIndex(gunId);
+        Optional<CommonGunIndex> gunIndexOptional = CommonGunPackLoader.getGunIndex(GunItem.getData(gunItemStack));
         if (gunIndexOptional.isEmpty()) {
             return ShootResult.FAIL;
         }
         GunData gunData = gunIndexOptional.get().getGunData();
+        long interval = gunData.getShootInterval();
         // 判断射击是否正在冷却
-        if ((System.currentTimeMillis() - tac$ShootTimestamp) < gunData.getShootInterval()) {
+        if (tac$ShootTimestamp >= 0 && timestamp - tac$ShootTimestamp < interval - TAC$SHOOT_TOLERANCE_MS) {
             return ShootResult.COOL_DOWN;
         }
         // todo 判断枪械是否有足够的弹药
         // 调用射击方法
         if (gunItemStack.getItem() instanceof IGun iGun) {
-            iGun.shoot((LivingEntity) (Object) this, gunItemStack, pitch, yaw);
-            tac$ShootTimestamp = System.currentTimeMillis();
+            LivingEntity shooter = (LivingEntity) (Object) this;
+            iGun.shoot(shooter, gunItemStack, pitch, yaw, rewindTicks);
+            // 本 tick 结束时通知附近的玩家
+            if (shooter.level instanceof ServerLevel level) {
+                ShootBroadcaster.get(level).record(shooter);
+            }
+            tac$ShootTimestamp = tac$ShootTimestamp < 0 ? timestamp : Math.max(timestamp, tac$ShootTimestamp + interval);
             return ShootResult.SUCCESS;
         }
         return ShootResult.FAIL;
     }
 
+    @Override
+    public ShootResult shootFromClient(ItemStack gunItemStack, float pitch, float yaw, int rewindTicks, int sequence, long clientTimestamp) {
+        // 重复或过期的开火直接忽略，序号溢出后仍然可以正确比较
+        if (tac$HasShootSequence && sequence - tac$LastShootSequence <= 0) {
+            return ShootResult.FAIL;
+        }
+        tac$HasShootSequence = true;
+        tac$LastShootSequence = sequence;
+        long now = System.currentTimeMillis();
+        long offset = now - clientTimestamp;
+        // 数据包延迟越小，时间差越小。只在停火一段时间后才允许时间差变大
+        if (tac$LastClientShootReceived == Long.MIN_VALUE || now - tac$LastClientShootReceived > TAC$CLOCK_RESYNC_MS
+                || offset < tac$ClientClockOffset) {
+            tac$ClientClockOffset = offset;
+        }
+        tac$LastClientShootReceived = now;
+        // 保留客户端开火之间的间隔，网络抖动不会影响冷却判断；同时不能超前服务端太多，防止客户端加快时钟
+        long timestamp = Math.min(clientTimestamp + tac$ClientClockOffset, now + TAC$MAX_LEAD_MS);
+        // 客户端上报的朝向只能在服务端已知朝向的容差范围内，防止客户端随意指定射击方向
+        LivingEntity shooter = (LivingEntity) (Object) this;
+        float tolerance = CommonConfig.SHOOT_AIM_TOLERANCE.get().floatValue();
+        float validPitch = Mth.clamp(tac$clampAngle(pitch, shooter.getXRot(), shooter.xRotO, tolerance), -90f, 90f);
+        float validYaw = tac$clampAngle(yaw, shooter.getYRot(), shooter.yRotO, tolerance);
+        return shoot(gunItemStack, validPitch, validYaw, rewindTicks, timestamp);
+    }
+
+    /**
+     * 把角度限制在当前朝向附近：允许的范围覆盖上一 tick 到当前 tick 的转动，再向两侧放宽 tolerance 度
+     */
+    @Unique
+    private static float tac$clampAngle(float angle, float current, float previous, float tolerance) {
+        float turned = Mth.degreesDifference(current, previous);
+        float min = Math.min(0, turned) - tolerance;
+        float max = Math.max(0, turned) + tolerance;
+        return current + Mth.clamp(Mth.degreesDifference(current, angle), min, max);
+    }
+
     @Override
     public FireMode fireSelect(ItemStack gunItemStack) {
         // 获取GunData
-        GunItemData gunItemData = GunItem.getData(gunItemStack);
-        ResourceLocation gunId = gunItemData.getGunId();
-        Optional<CommonGunIndex> gunIndexOptional = CommonGunPackLoader.getGunIndex(gunId);
+        GunItemData gunItemData = GunItem.getData(gunItemStack).copy();
+        Optional<CommonGunIndex> gunIndexOptional = CommonGunPackLoader.getGunIndex(gunItemData);
         if (gunIndexOptional.isEmpty()) {
             return FireMode.SEMI;
         }
@@ -4,6 +4,7 @@ import com.tac.guns.GunMod;
 import com.tac.guns.network.message.ClientMessagePlayerFireSelect;
 import com.tac.guns.network.message.ClientMessagePlayerShoot;
 import com.tac.guns.network.message.ServerMessageShoot;
+import com.tac.guns.network.message.ServerMessageSyncGunIds;
 import net.minecraft.core.BlockPos;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
@@ -32,12 +33,18 @@ public class NetworkHandler {
                 Optional.of(NetworkDirection.PLAY_TO_CLIENT));
         CHANNEL.registerMessage(2, ClientMessagePlayerFireSelect.class, ClientMessagePlayerFireSelect::encode, ClientMessagePlayerFireSelect::decode, ClientMessagePlayerFireSelect::handle,
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
+        CHANNEL.registerMessage(3, ServerMessageSyncGunIds.class, ServerMessageSyncGunIds::encode, ServerMessageSyncGunIds::decode, ServerMessageSyncGunIds::handle,
+                Optional.of(NetworkDirection.PLAY_TO_CLIENT));
     }
 
     public static void sendToClientPlayer(Object message, Player player) {
         CHANNEL.send(PacketDistributor.PLAYER.with(() -> (ServerPlayer) player), message);
     }
 
+    public static void sendToAll(Object message) {
+        CHANNEL.send(PacketDistributor.ALL.noArg(), message);
+    }
+
     public static void sendToNearby(Level world, BlockPos pos, Object toSend) {
         if (world instanceof ServerLevel) {
             ServerLevel ws = (ServerLevel) world;
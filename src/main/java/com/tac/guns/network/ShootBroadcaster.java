@@ -0,0 +1,203 @@
+package com.tac.guns.network;
+
+import com.google.common.collect.Maps;
+import com.tac.guns.network.message.ServerMessageShoot;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 汇总一个世界内一个 tick 的全部开火，在 tick 结束时统一发给附近的玩家。
+ * <p>
+ * 同一实体在一个 tick 内的多次开火合并为一条记录，每个接收者每个 tick 只收到一个 {@link ServerMessageShoot}（开火实体过多时拆分为多个），
+ * 其中包含其附近全部开火实体的记录。接收者通过每个 tick 构建一次的玩家网格查找，不再为每个数据包遍历区块内的玩家。
+ * <p>
+ * 只在服务端主线程中使用
+ */
+public class ShootBroadcaster {
+    /**
+     * 接收开火消息的最远距离
+     */
+    private static final double RANGE = 192;
+    /**
+     * 玩家网格的格子边长为 2 ^ CELL_SHIFT 格
+     */
+    private static final int CELL_SHIFT = 6;
+    private static final Map<ServerLevel, ShootBroadcaster> BROADCASTERS = Maps.newHashMap();
+
+    private final ServerLevel level;
+    /**
+     * 实体 id 到本 tick 开火记录下标的映射
+     */
+    private final Int2IntOpenHashMap shooterIndex = new Int2IntOpenHashMap();
+    private int size = 0;
+    private int[] shooterIds = new int[16];
+    private int[] shotCounts = new int[16];
+    private double[] posX = new double[16];
+    private double[] posY = new double[16];
+    private double[] posZ = new double[16];
+    private final Long2ObjectOpenHashMap<List<ServerPlayer>> playerCells = new Long2ObjectOpenHashMap<>();
+    private final Reference2ObjectOpenHashMap<ServerPlayer, IntArrayList> recipients = new Reference2ObjectOpenHashMap<>();
+    /**
+     * 清空时回收的列表，下一个 tick 复用
+     */
+    private final ArrayDeque<List<ServerPlayer>> freeCells = new ArrayDeque<>();
+    private final ArrayDeque<IntArrayList> freeRecipients = new ArrayDeque<>();
+
+    private ShootBroadcaster(ServerLevel level) {
+        this.level = level;
+        this.shooterIndex.defaultReturnValue(-1);
+    }
+
+    public static ShootBroadcaster get(ServerLevel level) {
+        return BROADCASTERS.computeIfAbsent(level, ShootBroadcaster::new);
+    }
+
+    /**
+     * 把本 tick 的开火发给附近的玩家，每个世界 tick 结束时调用
+     */
+    public static void flush(ServerLevel level) {
+        ShootBroadcaster broadcaster = BROADCASTERS.get(level);
+        if (broadcaster != null) {
+            broadcaster.flush();
+        }
+    }
+
+    /**
+     * 世界卸载时丢弃尚未发出的开火
+     */
+    public static void remove(ServerLevel level) {
+        BROADCASTERS.remove(level);
+    }
+
+    /**
+     * 记录一次开火，位置取本 tick 最后一次开火时实体的位置
+     */
+    public void record(LivingEntity shooter) {
+        int index = shooterIndex.get(shooter.getId());
+        if (index < 0) {
+            ensureCapacity(size + 1);
+            index = size++;
+            shooterIndex.put(shooter.getId(), index);
+            shooterIds[index] = shooter.getId();
+            shotCounts[index] = 0;
+        }
+        shotCounts[index]++;
+        posX[index] = shooter.getX();
+        posY[index] = shooter.getY();
+        posZ[index] = shooter.getZ();
+    }
+
+    private void flush() {
+        if (size == 0) {
+            return;
+        }
+        buildPlayerCells();
+        if (!playerCells.isEmpty()) {
+            collectRecipients();
+            send();
+        }
+        clear();
+    }
+
+    private void buildPlayerCells() {
+        for (ServerPlayer player : level.players()) {
+            long key = ChunkPos.asLong(Mth.floor(player.getX()) >> CELL_SHIFT, Mth.floor(player.getZ()) >> CELL_SHIFT);
+            List<ServerPlayer> cell = playerCells.get(key);
+            if (cell == null) {
+                cell = freeCells.isEmpty() ? new ArrayList<>() : freeCells.poll();
+                playerCells.put(key, cell);
+            }
+            cell.add(player);
+        }
+    }
+
+    /**
+     * 逐个开火实体，只查询其周围的格子，把开火记录的下标加入每个接收者的列表
+     */
+    private void collectRecipients() {
+        double rangeSqr = RANGE * RANGE;
+        for (int i = 0; i < size; i++) {
+            int minX = Mth.floor(posX[i] - RANGE) >> CELL_SHIFT, maxX = Mth.floor(posX[i] + RANGE) >> CELL_SHIFT;
+            int minZ = Mth.floor(posZ[i] - RANGE) >> CELL_SHIFT, maxZ = Mth.floor(posZ[i] + RANGE) >> CELL_SHIFT;
+            for (int x = minX; x <= maxX; x++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    List<ServerPlayer> cell = playerCells.get(ChunkPos.asLong(x, z));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (ServerPlayer player : cell) {
+                        // 开火的玩家自己已经在客户端执行过开火效果
+                        if (player.getId() == shooterIds[i] || player.distanceToSqr(posX[i], posY[i], posZ[i]) >= rangeSqr) {
+                            continue;
+                        }
+                        IntArrayList list = recipients.get(player);
+                        if (list == null) {
+                            list = freeRecipients.isEmpty() ? new IntArrayList() : freeRecipients.poll();
+                            recipients.put(player, list);
+                        }
+                        list.add(i);
+                    }
+                }
+            }
+        }
+    }
+
+    private void send() {
+        for (Reference2ObjectMap.Entry<ServerPlayer, IntArrayList> entry : recipients.reference2ObjectEntrySet()) {
+            IntArrayList list = entry.getValue();
+            // 超出单个数据包上限时拆分为多个数据包
+            for (int start = 0; start < list.size(); start += ServerMessageShoot.MAX_SHOOTERS) {
+                int count = Math.min(list.size() - start, ServerMessageShoot.MAX_SHOOTERS);
+                int[] ids = new int[count];
+                int[] counts = new int[count];
+                for (int j = 0; j < count; j++) {
+                    int index = list.getInt(start + j);
+                    ids[j] = shooterIds[index];
+                    counts[j] = shotCounts[index];
+                }
+                NetworkHandler.sendToClientPlayer(new ServerMessageShoot(ids, counts, count), entry.getKey());
+            }
+        }
+    }
+
+    private void clear() {
+        for (List<ServerPlayer> cell : playerCells.values()) {
+            cell.clear();
+            freeCells.add(cell);
+        }
+        playerCells.clear();
+        for (IntArrayList list : recipients.values()) {
+            list.clear();
+            freeRecipients.add(list);
+        }
+        recipients.clear();
+        shooterIndex.clear();
+        size = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= shooterIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, shooterIds.length * 2);
+        shooterIds = Arrays.copyOf(shooterIds, newCapacity);
+        shotCounts = Arrays.copyOf(shotCounts, newCapacity);
+        posX = Arrays.copyOf(posX, newCapacity);
+        posY = Arrays.copyOf(posY, newCapacity);
+        posZ = Arrays.copyOf(posZ, newCapacity);
+    }
+}
@@ -1,25 +1,97 @@
 package com.tac.guns.network.message;
 
-import com.mojang.logging.LogUtils;
 import com.tac.guns.api.entity.IGunOperator;
 import com.tac.guns.api.event.GunShootEvent;
-import com.tac.guns.api.item.IGun;
-import com.tac.guns.item.GunItem;
+import com.tac.guns.config.CommonConfig;
+import io.netty.handler.codec.DecoderException;
 import net.minecraft.network.FriendlyByteBuf;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.LogicalSide;
 import net.minecraftforge.network.NetworkEvent;
 
 import java.util.function.Supplier;
 
+/**
+ * 客户端的开火，高射速时一个数据包可以携带同一 tick 内的多次开火。
+ * <p>
+ * 数据格式：开火次数、第一发的序号、客户端世界 tick、第一发的时间均为变长整数；
+ * 之后每一发依次是与上一发的时间差（第一发没有）、俯仰角和偏航角。角度以 0.01 度为单位，zigzag 编码后写为变长整数
+ */
 public class ClientMessagePlayerShoot {
+    /**
+     * 一个数据包最多携带的开火次数
+     */
+    public static final int MAX_SHOTS = 20;
+    private static final float ANGLE_SCALE = 100f;
+
+    /**
+     * 第一发的序号，之后每一发依次加一
+     */
+    private final int firstSequence;
+    /**
+     * 开火时客户端世界的 tick，服务端据此估算玩家看到的是多少 tick 之前的世界
+     */
+    private final long clientTick;
+    private final long[] timestamps = new long[MAX_SHOTS];
+    private final float[] pitch = new float[MAX_SHOTS];
+    private final float[] yaw = new float[MAX_SHOTS];
+    private int count = 0;
+
+    public ClientMessagePlayerShoot(int firstSequence, long clientTick) {
+        this.firstSequence = firstSequence;
+        this.clientTick = clientTick;
+    }
+
+    /**
+     * @param timestamp 客户端开火的时间，毫秒，只有相对值有意义
+     * @return 是否添加成功，达到 {@link #MAX_SHOTS} 时返回 false
+     */
+    public boolean addShot(float pitch, float yaw, long timestamp) {
+        if (count >= MAX_SHOTS) {
+            return false;
+        }
+        this.timestamps[count] = timestamp;
+        this.pitch[count] = pitch;
+        this.yaw[count] = yaw;
+        count++;
+        return true;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
     public static void encode(ClientMessagePlayerShoot message, FriendlyByteBuf buf) {
+        buf.writeVarInt(message.count);
+        buf.writeVarInt(message.firstSequence);
+        buf.writeVarLong(message.clientTick);
+        for (int i = 0; i < message.count; i++) {
+            if (i == 0) {
+                buf.writeVarLong(message.timestamps[0]);
+            } else {
+                buf.writeVarInt(zigzag((int) (message.timestamps[i] - message.timestamps[i - 1])));
+            }
+            buf.writeVarInt(zigzag(Math.round(message.pitch[i] * ANGLE_SCALE)));
+            buf.writeVarInt(zigzag(Math.round(Mth.wrapDegrees(message.yaw[i]) * ANGLE_SCALE)));
+        }
     }
 
     public static ClientMessagePlayerShoot decode(FriendlyByteBuf buf) {
-        return new ClientMessagePlayerShoot();
+        int count = buf.readVarInt();
+        if (count < 0 || count > MAX_SHOTS) {
+            throw new DecoderException("Too many shots in one packet: " + count);
+        }
+        ClientMessagePlayerShoot message = new ClientMessagePlayerShoot(buf.readVarInt(), buf.readVarLong());
+        long timestamp = 0;
+        for (int i = 0; i < count; i++) {
+            timestamp = i == 0 ? buf.readVarLong() : timestamp + unzigzag(buf.readVarInt());
+            float pitch = unzigzag(buf.readVarInt()) / ANGLE_SCALE;
+            float yaw = unzigzag(buf.readVarInt()) / ANGLE_SCALE;
+            message.addShot(Mth.clamp(pitch, -90f, 90f), yaw, timestamp);
+        }
+        return message;
     }
 
     public static void handle(ClientMessagePlayerShoot message, Supplier<NetworkEvent.Context> contextSupplier) {
@@ -27,15 +99,29 @@ public class ClientMessagePlayerShoot {
         if (context.getDirection().getReceptionSide().isServer()) {
             context.enqueueWork(() -> {
                 ServerPlayer entity = context.getSender();
-                if(entity == null){
+                if (entity == null) {
                     return;
                 }
-                if (MinecraftForge.EVENT_BUS.post(new GunShootEvent(entity, entity.getMainHandItem(), LogicalSide.SERVER))) {
-                    return;
+                // 客户端的世界时间由服务端同步，落后的部分就是玩家看到的画面的延迟
+                long behindTicks = entity.level.getGameTime() - message.clientTick;
+                int rewindTicks = (int) Math.max(0, Math.min(behindTicks, CommonConfig.MAX_REWIND_TICKS.get()));
+                for (int i = 0; i < message.count; i++) {
+                    if (MinecraftForge.EVENT_BUS.post(new GunShootEvent(entity, entity.getMainHandItem(), LogicalSide.SERVER))) {
+                        return;
+                    }
+                    IGunOperator.fromLivingEntity(entity).shootFromClient(entity.getMainHandItem(), message.pitch[i], message.yaw[i],
+                            rewindTicks, message.firstSequence + i, message.timestamps[i]);
                 }
-                IGunOperator.fromLivingEntity(entity).shoot(entity.getMainHandItem(), entity.getXRot(), entity.getYRot());
             });
         }
         context.setPacketHandled(true);
     }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
 }
@@ -1,25 +1,74 @@
 package com.tac.guns.network.message;
 
+import com.tac.guns.client.network.ClientShootHandler;
+import io.netty.handler.codec.DecoderException;
 import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
 import net.minecraftforge.network.NetworkEvent;
 
 import java.util.function.Supplier;
 
+/**
+ * 一个 tick 内附近实体的全部开火，每个接收者每个 tick 通常只收到一个，开火实体超过 {@link #MAX_SHOOTERS} 时拆分为多个。
+ * <p>
+ * 数据格式：开火实体数量，之后每个实体依次是实体 id 和这一 tick 的开火次数，均为变长整数
+ */
 public class ServerMessageShoot {
-    private int shooterId;
+    /**
+     * 一个数据包最多携带的开火实体数量
+     */
+    public static final int MAX_SHOOTERS = 256;
+
+    private final int[] shooterIds;
+    private final int[] shotCounts;
+    private final int count;
+
+    public ServerMessageShoot(int[] shooterIds, int[] shotCounts, int count) {
+        this.shooterIds = shooterIds;
+        this.shotCounts = shotCounts;
+        this.count = count;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getShooterId(int index) {
+        return shooterIds[index];
+    }
+
+    public int getShotCount(int index) {
+        return shotCounts[index];
+    }
 
     public static void encode(ServerMessageShoot message, FriendlyByteBuf buf) {
-        buf.writeInt(message.shooterId);
+        buf.writeVarInt(message.count);
+        for (int i = 0; i < message.count; i++) {
+            buf.writeVarInt(message.shooterIds[i]);
+            buf.writeVarInt(message.shotCounts[i]);
+        }
     }
 
     public static ServerMessageShoot decode(FriendlyByteBuf buf) {
-        ServerMessageShoot message = new ServerMessageShoot();
-        message.shooterId = buf.readInt();
-        return message;
+        int count = buf.readVarInt();
+        if (count < 0 || count > MAX_SHOOTERS) {
+            throw new DecoderException("Too many shooters in one packet: " + count);
+        }
+        int[] shooterIds = new int[count];
+        int[] shotCounts = new int[count];
+        for (int i = 0; i < count; i++) {
+            shooterIds[i] = buf.readVarInt();
+            shotCounts[i] = buf.readVarInt();
+        }
+        return new ServerMessageShoot(shooterIds, shotCounts, count);
     }
 
     public static void handle(ServerMessageShoot message, Supplier<NetworkEvent.Context> contextSupplier) {
         NetworkEvent.Context context = contextSupplier.get();
+        if (context.getDirection().getReceptionSide().isClient()) {
+            context.enqueueWork(() -> DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> ClientShootHandler.handle(message)));
+        }
         context.setPacketHandled(true);
     }
 }
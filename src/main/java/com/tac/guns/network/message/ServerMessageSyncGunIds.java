@@ -0,0 +1,56 @@
+package com.tac.guns.network.message;
+
+import com.tac.guns.client.resource.ClientGunPackLoader;
+import com.tac.guns.resource.GunIdRegistry;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.network.NetworkEvent;
+
+import java.util.function.Supplier;
+
+/**
+ * 服务端的枪械数字 id 表，玩家登录和服务端重载枪包后发送
+ */
+public class ServerMessageSyncGunIds {
+    /**
+     * 数字 id 到枪械 id 的数组，空位为 null
+     */
+    private final ResourceLocation[] ids;
+
+    public ServerMessageSyncGunIds(ResourceLocation[] ids) {
+        this.ids = ids;
+    }
+
+    public static void encode(ServerMessageSyncGunIds message, FriendlyByteBuf buf) {
+        buf.writeVarInt(message.ids.length);
+        for (ResourceLocation id : message.ids) {
+            buf.writeBoolean(id != null);
+            if (id != null) {
+                buf.writeResourceLocation(id);
+            }
+        }
+    }
+
+    public static ServerMessageSyncGunIds decode(FriendlyByteBuf buf) {
+        ResourceLocation[] ids = new ResourceLocation[buf.readVarInt()];
+        for (int i = 0; i < ids.length; i++) {
+            if (buf.readBoolean()) {
+                ids[i] = buf.readResourceLocation();
+            }
+        }
+        return new ServerMessageSyncGunIds(ids);
+    }
+
+    public static void handle(ServerMessageSyncGunIds message, Supplier<NetworkEvent.Context> contextSupplier) {
+        NetworkEvent.Context context = contextSupplier.get();
+        if (context.getDirection().getReceptionSide().isClient()) {
+            context.enqueueWork(() -> DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> {
+                GunIdRegistry.CLIENT.replace(message.ids);
+                ClientGunPackLoader.rebuildNumericIndex();
+            }));
+        }
+        context.setPacketHandled(true);
+    }
+}
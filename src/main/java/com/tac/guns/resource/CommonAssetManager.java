@@ -1,27 +1,93 @@
 package com.tac.guns.resource;
 
 import com.google.common.collect.Maps;
+import com.tac.guns.resource.pojo.GunIndexPOJO;
 import com.tac.guns.resource.pojo.data.GunData;
 import net.minecraft.resources.ResourceLocation;
 
+import javax.annotation.Nullable;
 import java.util.Map;
+import java.util.Set;
 
 public enum CommonAssetManager {
     INSTANCE;
     /**
-     * 储存 data 数据
+     * 当前正在使用的资源
      */
-    private final Map<ResourceLocation, GunData> gunData = Maps.newHashMap();
+    private volatile Storage storage = new Storage();
+    /**
+     * 重载时，加载线程解析出的资源先写入这里，全部完成后由 publish 一次性替换
+     */
+    @Nullable
+    private volatile Storage pending;
+
+    /**
+     * 开始重载，之后所有的 put 操作都会写入待发布的缓存中。
+     * 增量重载时，待发布的缓存以当前资源（或尚未发布的上一次重载）为基础，并移除已经被删除的资源
+     */
+    public void beginReload(PackChangeSet changes) {
+        Storage next = new Storage();
+        if (!changes.isFull()) {
+            Storage current = writable();
+            next.gunData.putAll(current.gunData);
+            next.gunIndex.putAll(current.gunIndex);
+        }
+        for (PackAssetKey key : changes.getRemoved()) {
+            switch (key.type()) {
+                case GUN_DATA -> next.gunData.remove(key.id());
+                case GUN_INDEX -> next.gunIndex.remove(key.id());
+                default -> {
+                }
+            }
+        }
+        pending = next;
+    }
+
+    /**
+     * 发布重载完成的资源，旧的资源随之释放
+     */
+    public void publish() {
+        Storage loaded = pending;
+        if (loaded != null) {
+            storage = loaded;
+            pending = null;
+        }
+    }
 
     public void putGunData(ResourceLocation registryName, GunData data) {
-        gunData.put(registryName, data);
+        writable().gunData.put(registryName, data);
+    }
+
+    public void putGunIndex(ResourceLocation registryName, GunIndexPOJO index) {
+        writable().gunIndex.put(registryName, index);
     }
 
     public GunData getGunData(ResourceLocation registryName) {
-        return gunData.get(registryName);
+        return storage.gunData.get(registryName);
+    }
+
+    public Set<Map.Entry<ResourceLocation, GunIndexPOJO>> getAllGunIndex() {
+        return storage.gunIndex.entrySet();
     }
 
     public void clearAll() {
-        // TODO：重载时清理缓存
+        storage = new Storage();
+        pending = null;
+    }
+
+    private Storage writable() {
+        Storage loading = pending;
+        return loading != null ? loading : storage;
+    }
+
+    private static class Storage {
+        /**
+         * 储存 data 数据
+         */
+        private final Map<ResourceLocation, GunData> gunData = Maps.newConcurrentMap();
+        /**
+         * 储存 index 定义文件
+         */
+        private final Map<ResourceLocation, GunIndexPOJO> gunIndex = Maps.newConcurrentMap();
     }
 }
@@ -4,42 +4,43 @@ import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.tac.guns.GunMod;
+import com.tac.guns.item.nbt.GunItemData;
+import com.tac.guns.network.NetworkHandler;
+import com.tac.guns.network.message.ServerMessageSyncGunIds;
 import com.tac.guns.resource.index.CommonGunIndex;
 import com.tac.guns.resource.loader.GunDataLoader;
+import com.tac.guns.resource.loader.GunIndexLoader;
 import com.tac.guns.resource.pojo.GunIndexPOJO;
 import com.tac.guns.util.GetJarResources;
-import com.tac.guns.util.TacPathVisitor;
 import net.minecraft.resources.ResourceLocation;
-import org.apache.logging.log4j.Marker;
-import org.apache.logging.log4j.MarkerManager;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.server.ServerLifecycleHooks;
 
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Enumeration;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.util.Set;
 
 public class CommonGunPackLoader {
     public static final Gson GSON = new GsonBuilder().registerTypeAdapter(ResourceLocation.class, new ResourceLocation.Serializer()).create();
 
-    private static final Map<ResourceLocation, CommonGunIndex> GUN_INDEX = Maps.newHashMap();
-    private static final Marker MARKER = MarkerManager.getMarker("CommonGunPackLoader");
+    private static volatile Map<ResourceLocation, CommonGunIndex> GUN_INDEX = Maps.newHashMap();
+    /**
+     * 按服务端数字 id 排列的 index，空位为 null
+     */
+    private static volatile CommonGunIndex[] GUN_INDEX_BY_NUMERIC_ID = new CommonGunIndex[0];
+    /**
+     * 上一次重载时的文件快照，仅在服务端单独重载时使用
+     */
+    private static PackSnapshot SNAPSHOT;
     /**
      * 放置自定义枪械模型的目录
      */
     public static final Path FOLDER = Paths.get("config", GunMod.MOD_ID, "custom");
     public static final String DEFAULT_GUN_PACK_NAME = "tac_default_gun";
-    public static final Pattern GUNS_INDEX_PATTERN = Pattern.compile("^(\\w+)/guns/index/(\\w+)\\.json$");
 
     /**
      * 创建存放枪包的文件夹、放入默认枪包
@@ -50,172 +51,130 @@ public class CommonGunPackLoader {
     }
 
     /**
-     * 读取所有枪包的资源文件
+     * 注册服务端需要的加载器，data 文件和 index 文件
      */
-    public static void reloadAsset() {
-        CommonAssetManager.INSTANCE.clearAll();
-
-        File[] files = FOLDER.toFile().listFiles((dir, name) -> true);
-        if (files != null) {
-            readAsset(files);
-        }
+    public static void addLoaders(PackLoadPipeline pipeline) {
+        pipeline.addLoader(PackFileType.GUN_DATA, GunDataLoader::load)
+                .addLoader(PackFileType.GUN_INDEX, GunIndexLoader::load);
     }
 
     /**
-     * 读取所有枪包的定义文件
+     * 读取枪包，并重建受影响的 index
+     *
+     * @param incremental 为 true 时只读取与上一次重载相比发生变化的文件
      */
-    public static void reloadIndex() {
-        GUN_INDEX.clear();
-
-        File[] files = FOLDER.toFile().listFiles((dir, name) -> true);
-        if (files != null) {
-            readGunIndex(files);
-        }
+    public static void reload(boolean incremental) {
+        prepareReload(incremental).run();
     }
 
-    private static void checkDefaultPack() {
-        // todo 改成可选安装
-        String jarDefaultPackPath = String.format("/assets/%s/custom/%s", GunMod.MOD_ID, DEFAULT_GUN_PACK_NAME);
-        GetJarResources.copyModDirectory(jarDefaultPackPath, FOLDER, DEFAULT_GUN_PACK_NAME);
-    }
-
-    private static void createFolder() {
-        File folder = FOLDER.toFile();
-        if (!folder.isDirectory()) {
-            try {
-                Files.createDirectories(folder.toPath());
-            } catch (Exception e) {
-                e.printStackTrace();
+    /**
+     * 扫描并解析枪包，可以在任意线程调用。
+     * 返回的任务负责发布资源并重建 index，需要交给主线程执行
+     *
+     * @param incremental 为 true 时只读取与上一次重载相比发生变化的文件
+     */
+    public static synchronized Runnable prepareReload(boolean incremental) {
+        PackLoadPipeline pipeline = new PackLoadPipeline(FOLDER);
+        addLoaders(pipeline);
+        PackChangeSet changes = pipeline.scan(SNAPSHOT, !incremental);
+        CommonAssetManager.INSTANCE.beginReload(changes);
+        pipeline.load();
+        SNAPSHOT = pipeline.getSnapshot();
+        return () -> {
+            synchronized (CommonGunPackLoader.class) {
+                CommonAssetManager.INSTANCE.publish();
+                reloadIndex(changes);
             }
-        }
+        };
     }
 
-    private static void readAsset(File[] files) {
-        for (File file : files) {
-            if (file.isFile() && file.getName().endsWith(".zip")) {
-                readZipAsset(file);
-            }
-            if (file.isDirectory()) {
-                File[] subFiles = file.listFiles((dir, name) -> true);
-                if (subFiles == null) {
-                    return;
-                }
-                for (File namespaceFile : subFiles) {
-                    readDirAsset(namespaceFile);
+    /**
+     * 根据已经读取的定义文件构建 index，需要在资源发布后调用。
+     * 只有依赖的资源发生了变化的 index 才会重建，其余的沿用上一次的结果
+     */
+    public static void reloadIndex(PackChangeSet changes) {
+        PackDependencyGraph graph = new PackDependencyGraph();
+        for (Map.Entry<ResourceLocation, GunIndexPOJO> entry : CommonAssetManager.INSTANCE.getAllGunIndex()) {
+            graph.addDependency(entry.getKey(), PackFileType.GUN_INDEX, entry.getKey());
+            graph.addDependency(entry.getKey(), PackFileType.GUN_DATA, entry.getValue().getData());
+        }
+        Set<ResourceLocation> affected = graph.getAffected(changes);
+        Map<ResourceLocation, CommonGunIndex> gunIndex = Maps.newHashMap();
+        for (Map.Entry<ResourceLocation, GunIndexPOJO> entry : CommonAssetManager.INSTANCE.getAllGunIndex()) {
+            ResourceLocation id = entry.getKey();
+            if (!affected.contains(id)) {
+                CommonGunIndex previous = GUN_INDEX.get(id);
+                if (previous != null) {
+                    gunIndex.put(id, previous);
                 }
+                continue;
             }
-        }
-    }
-
-    private static void readZipAsset(File file) {
-        try (ZipFile zipFile = new ZipFile(file)) {
-            Enumeration<? extends ZipEntry> iteration = zipFile.entries();
-            while (iteration.hasMoreElements()) {
-                String path = iteration.nextElement().getName();
-                // 加载全部的 data 文件
-                GunDataLoader.load(zipFile, path);
+            try {
+                gunIndex.put(id, CommonGunIndex.getInstance(entry.getValue()));
+            } catch (IllegalArgumentException exception) {
+                GunMod.LOGGER.warn("{} index file read fail!", id);
+                exception.printStackTrace();
             }
-        } catch (IOException ioException) {
-            ioException.printStackTrace();
+        }
+        GUN_INDEX = gunIndex;
+        boolean changed = GunIdRegistry.SERVER.assign(gunIndex.keySet());
+        rebuildNumericIndex();
+        if (changed) {
+            syncGunIds();
         }
     }
 
-    private static void readDirAsset(File root) {
-        if (root.isDirectory()) {
-            try {
-                GunDataLoader.load(root);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    private static void rebuildNumericIndex() {
+        ResourceLocation[] ids = GunIdRegistry.SERVER.toArray();
+        CommonGunIndex[] indexById = new CommonGunIndex[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            indexById[i] = ids[i] == null ? null : GUN_INDEX.get(ids[i]);
         }
+        GUN_INDEX_BY_NUMERIC_ID = indexById;
     }
 
-    private static void readGunIndex(File[] files) {
-        for (File file : files) {
-            if (file.isFile() && file.getName().endsWith(".zip")) {
-                readZipGunIndex(file);
-            }
-            if (file.isDirectory()) {
-                File[] subFiles = file.listFiles((dir, name) -> true);
-                if (subFiles == null) {
-                    return;
-                }
-                for (File namespaceFile : subFiles) {
-                    readDirGunIndex(namespaceFile);
-                }
-            }
+    /**
+     * 数字 id 表变化后，通知服务器上的全部玩家
+     */
+    private static void syncGunIds() {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server != null) {
+            ServerMessageSyncGunIds message = new ServerMessageSyncGunIds(GunIdRegistry.SERVER.toArray());
+            server.execute(() -> NetworkHandler.sendToAll(message));
         }
     }
 
-    private static void readZipGunIndex(File file) {
-        try (ZipFile zipFile = new ZipFile(file)) {
-            // 第一次读取
-            Enumeration<? extends ZipEntry> iteration = zipFile.entries();
-            while (iteration.hasMoreElements()) {
-                String path = iteration.nextElement().getName();
-                // 加载枪械的 index 文件
-                loadGunIndex(path, zipFile);
-            }
-        } catch (IOException ioException) {
-            ioException.printStackTrace();
-        }
+    private static void checkDefaultPack() {
+        // todo 改成可选安装
+        String jarDefaultPackPath = String.format("/assets/%s/custom/%s", GunMod.MOD_ID, DEFAULT_GUN_PACK_NAME);
+        GetJarResources.copyModDirectory(jarDefaultPackPath, FOLDER, DEFAULT_GUN_PACK_NAME);
     }
 
-    private static void readDirGunIndex(File root) {
-        if (root.isDirectory()) {
+    private static void createFolder() {
+        File folder = FOLDER.toFile();
+        if (!folder.isDirectory()) {
             try {
-                loadGunIndex(root);
-            } catch (IOException e) {
+                Files.createDirectories(folder.toPath());
+            } catch (Exception e) {
                 e.printStackTrace();
             }
         }
     }
 
-    private static void loadGunIndex(String path, ZipFile zipFile) throws IOException {
-        Matcher matcher = GUNS_INDEX_PATTERN.matcher(path);
-        if (matcher.find()) {
-            String namespace = matcher.group(1);
-            String id = matcher.group(2);
-            ZipEntry entry = zipFile.getEntry(path);
-            if (entry == null) {
-                GunMod.LOGGER.warn(MARKER, "{} file don't exist", path);
-                return;
-            }
-            try (InputStream stream = zipFile.getInputStream(entry)) {
-                // 获取枪械的定义文件
-                GunIndexPOJO indexPOJO = GSON.fromJson(new InputStreamReader(stream, StandardCharsets.UTF_8), GunIndexPOJO.class);
-                ResourceLocation registryName = new ResourceLocation(namespace, id);
-                try {
-                    GUN_INDEX.put(registryName, CommonGunIndex.getInstance(indexPOJO));
-                } catch (IllegalArgumentException exception) {
-                    GunMod.LOGGER.warn("{} index file read fail!", path);
-                    exception.printStackTrace();
-                }
-            }
-        }
+    public static Optional<CommonGunIndex> getGunIndex(ResourceLocation registryName) {
+        return Optional.ofNullable(GUN_INDEX.get(registryName));
     }
 
-    private static void loadGunIndex(File root) throws IOException {
-        Path filePath = root.toPath().resolve("guns/index");
-        if (Files.isDirectory(filePath)) {
-            TacPathVisitor visitor = new TacPathVisitor(filePath.toFile(), root.getName(), ".json", (id, file) -> {
-                try (InputStream stream = Files.newInputStream(file)) {
-                    // 获取枪械的定义文件
-                    GunIndexPOJO indexPOJO = GSON.fromJson(new InputStreamReader(stream, StandardCharsets.UTF_8), GunIndexPOJO.class);
-                    GUN_INDEX.put(id, CommonGunIndex.getInstance(indexPOJO));
-                } catch (IOException exception) {
-                    GunMod.LOGGER.warn(MARKER, "Failed to read index file: {}", file);
-                    exception.printStackTrace();
-                } catch (IllegalArgumentException exception) {
-                    GunMod.LOGGER.warn("{} index file read fail!", file);
-                    exception.printStackTrace();
-                }
-            });
-            Files.walkFileTree(filePath, visitor);
+    /**
+     * 优先按数字 id 以数组下标查找，数字 id 无效时再按枪械 id 查找
+     */
+    public static Optional<CommonGunIndex> getGunIndex(GunItemData data) {
+        int numericId = data.getNumericId();
+        CommonGunIndex[] indexById = GUN_INDEX_BY_NUMERIC_ID;
+        if (numericId >= 0 && numericId < indexById.length && indexById[numericId] != null
+                && data.getGunId().equals(GunIdRegistry.SERVER.getGunId(numericId))) {
+            return Optional.of(indexById[numericId]);
         }
-    }
-
-    public static Optional<CommonGunIndex> getGunIndex(ResourceLocation registryName) {
-        return Optional.ofNullable(GUN_INDEX.get(registryName));
+        return getGunIndex(data.getGunId());
     }
 }
@@ -0,0 +1,127 @@
+package com.tac.guns.resource;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.fml.util.thread.EffectiveSide;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 已加载枪械的数字 id 表，用于数组下标查找、紧凑的数据包和 NBT。
+ * <p>
+ * 数字 id 由服务端分配，登录和重载后同步给客户端，客户端只使用服务端同步的表。
+ * 同一次运行中，枪械的数字 id 在重载后保持不变，删除的枪械留下空位，不会被其他枪械复用。
+ * 数字 id 不会跨越服务端重启保存，NBT 中的数字 id 只是提示，必须与字符串 id 一致才会使用
+ */
+public class GunIdRegistry {
+    public static final GunIdRegistry SERVER = new GunIdRegistry();
+    public static final GunIdRegistry CLIENT = new GunIdRegistry();
+
+    private volatile Table table = new Table(new ResourceLocation[0]);
+
+    /**
+     * 当前线程所在逻辑端使用的表
+     */
+    public static GunIdRegistry current() {
+        return EffectiveSide.get().isClient() ? CLIENT : SERVER;
+    }
+
+    /**
+     * 服务端重载后分配数字 id：已有的枪械保留原来的 id，新的枪械按 id 排序后追加在末尾
+     *
+     * @return 表是否发生了变化
+     */
+    public synchronized boolean assign(Collection<ResourceLocation> gunIds) {
+        ResourceLocation[] previous = table.ids;
+        ResourceLocation[] ids = new ResourceLocation[previous.length];
+        boolean changed = false;
+        for (int i = 0; i < previous.length; i++) {
+            if (previous[i] != null && gunIds.contains(previous[i])) {
+                ids[i] = previous[i];
+            } else {
+                changed |= previous[i] != null;
+            }
+        }
+        List<ResourceLocation> added = new ArrayList<>();
+        for (ResourceLocation gunId : gunIds) {
+            if (table.numericIds.getInt(gunId) < 0) {
+                added.add(gunId);
+            }
+        }
+        if (!added.isEmpty()) {
+            added.sort(null);
+            int start = ids.length;
+            ids = Arrays.copyOf(ids, start + added.size());
+            for (int i = 0; i < added.size(); i++) {
+                ids[start + i] = added.get(i);
+            }
+            changed = true;
+        }
+        if (changed) {
+            table = new Table(ids);
+        }
+        return changed;
+    }
+
+    /**
+     * 客户端收到服务端同步的表后整体替换
+     */
+    public synchronized void replace(ResourceLocation[] ids) {
+        table = new Table(ids.clone());
+    }
+
+    /**
+     * @return 枪械的数字 id，没有分配时返回 -1
+     */
+    public int getNumericId(ResourceLocation gunId) {
+        return table.numericIds.getInt(gunId);
+    }
+
+    @Nullable
+    public ResourceLocation getGunId(int numericId) {
+        ResourceLocation[] ids = table.ids;
+        if (numericId < 0 || numericId >= ids.length) {
+            return null;
+        }
+        return ids[numericId];
+    }
+
+    /**
+     * 表的版本号，每次变化加一，用于判断按数字 id 建立的缓存是否过期
+     */
+    public int getVersion() {
+        return table.version;
+    }
+
+    /**
+     * @return 数字 id 到枪械 id 的数组副本，空位为 null
+     */
+    public ResourceLocation[] toArray() {
+        return table.ids.clone();
+    }
+
+    private static final class Table {
+        private static int NEXT_VERSION = 0;
+
+        private final ResourceLocation[] ids;
+        private final Object2IntOpenHashMap<ResourceLocation> numericIds = new Object2IntOpenHashMap<>();
+        private final int version;
+
+        private Table(ResourceLocation[] ids) {
+            this.ids = ids;
+            this.numericIds.defaultReturnValue(-1);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != null) {
+                    this.numericIds.put(ids[i], i);
+                }
+            }
+            synchronized (Table.class) {
+                this.version = NEXT_VERSION++;
+            }
+        }
+    }
+}
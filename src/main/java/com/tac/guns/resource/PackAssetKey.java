@@ -0,0 +1,9 @@
+package com.tac.guns.resource;
+
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * 枪包中一份资源的唯一标识，同一 id 在不同类型下是不同的资源
+ */
+public record PackAssetKey(PackFileType type, ResourceLocation id) {
+}
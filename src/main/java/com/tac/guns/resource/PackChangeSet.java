@@ -0,0 +1,58 @@
+package com.tac.guns.resource;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 两次重载之间枪包文件的变化
+ */
+public class PackChangeSet {
+    private final boolean full;
+    private final Set<PackAssetKey> changed;
+    private final Set<PackAssetKey> removed;
+    private final Set<PackFileType> changedTypes;
+
+    public PackChangeSet(boolean full, Set<PackAssetKey> changed, Set<PackAssetKey> removed, Set<PackFileType> changedTypes) {
+        this.full = full;
+        this.changed = changed;
+        this.removed = removed;
+        this.changedTypes = changedTypes;
+    }
+
+    /**
+     * 是否为全量重载，全量重载时资源管理器会丢弃之前的全部资源
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    public boolean isEmpty() {
+        return changed.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * 该资源是否新增或修改，需要重新读取
+     */
+    public boolean isChanged(PackAssetKey key) {
+        return changed.contains(key);
+    }
+
+    /**
+     * 该资源是否发生了任何变化，包括新增、修改和删除
+     */
+    public boolean isAffected(PackAssetKey key) {
+        return full || changed.contains(key) || removed.contains(key);
+    }
+
+    public boolean isTypeChanged(PackFileType type) {
+        return full || changedTypes.contains(type);
+    }
+
+    public Set<PackAssetKey> getChanged() {
+        return Collections.unmodifiableSet(changed);
+    }
+
+    public Set<PackAssetKey> getRemoved() {
+        return Collections.unmodifiableSet(removed);
+    }
+}
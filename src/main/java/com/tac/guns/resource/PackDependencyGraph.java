@@ -0,0 +1,49 @@
+package com.tac.guns.resource;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.minecraft.resources.ResourceLocation;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * index 文件与其引用的资源之间的依赖关系：index → display/data → model/animation/texture/sound。
+ * <p>
+ * 依赖关系在每次重载后根据最新的资源重新构建。引用关系本身的变化一定伴随着 index 或 display 文件的变化，
+ * 所以只需要检查当前的依赖中是否有资源发生了变化，就能找出所有需要重建的 index
+ */
+public class PackDependencyGraph {
+    /**
+     * 键为被依赖的资源，值为依赖它的 index id
+     */
+    private final Map<PackAssetKey, Set<ResourceLocation>> dependents = Maps.newHashMap();
+    private final Set<ResourceLocation> indexes = Sets.newHashSet();
+
+    /**
+     * 记录 index 依赖的某个资源，asset 为 null 时忽略
+     */
+    public void addDependency(ResourceLocation index, PackFileType type, @Nullable ResourceLocation asset) {
+        indexes.add(index);
+        if (asset != null) {
+            dependents.computeIfAbsent(new PackAssetKey(type, asset), key -> Sets.newHashSet()).add(index);
+        }
+    }
+
+    /**
+     * 找出依赖的资源发生了变化的全部 index
+     */
+    public Set<ResourceLocation> getAffected(PackChangeSet changes) {
+        if (changes.isFull()) {
+            return Sets.newHashSet(indexes);
+        }
+        Set<ResourceLocation> affected = Sets.newHashSet();
+        dependents.forEach((key, indexIds) -> {
+            if (changes.isAffected(key)) {
+                affected.addAll(indexIds);
+            }
+        });
+        return affected;
+    }
+}
@@ -0,0 +1,151 @@
+package com.tac.guns.resource;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.tac.guns.GunMod;
+import net.minecraft.resources.ResourceLocation;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 单个枪包的文件索引。每个枪包只枚举一次，按路径逐级判断文件类型，
+ * 之后所有的加载器都从索引中取得自己需要的文件，不再各自遍历枪包、匹配正则
+ */
+public class PackFileIndex {
+    private static final Marker MARKER = MarkerManager.getMarker("PackFileIndex");
+    private final Map<PackFileType, List<Entry>> entries = Maps.newEnumMap(PackFileType.class);
+    private int size;
+
+    /**
+     * 枚举 zip 格式枪包中的全部条目
+     */
+    public static PackFileIndex ofZip(ZipFile zipFile) {
+        PackFileIndex index = new PackFileIndex();
+        Enumeration<? extends ZipEntry> iteration = zipFile.entries();
+        while (iteration.hasMoreElements()) {
+            ZipEntry entry = iteration.nextElement();
+            if (!entry.isDirectory()) {
+                index.add(new PackResource.Zip(zipFile, entry));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 枚举文件夹格式枪包中的全部文件，packRoot 为枪包根目录，其下一级为各个 namespace
+     */
+    public static PackFileIndex ofDir(Path packRoot) throws IOException {
+        PackFileIndex index = new PackFileIndex();
+        // 遍历时顺便取得文件属性，用于计算文件指纹
+        Files.walkFileTree(packRoot, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    String path = packRoot.relativize(file).toString().replace('\\', '/');
+                    index.add(new PackResource.Dir(path, file, attributes.lastModifiedTime().toMillis(), attributes.size()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return index;
+    }
+
+    public List<Entry> get(PackFileType type) {
+        return entries.getOrDefault(type, Collections.emptyList());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Collection<List<Entry>> getAll() {
+        return entries.values();
+    }
+
+    private void add(PackResource resource) {
+        Entry entry = classify(resource);
+        if (entry != null) {
+            entries.computeIfAbsent(entry.type(), type -> Lists.newArrayList()).add(entry);
+            size++;
+        }
+    }
+
+    /**
+     * 根据路径判断文件类型，无法识别的文件返回 null
+     */
+    @Nullable
+    public static Entry classify(PackResource resource) {
+        String path = resource.getPath();
+        int namespaceEnd = path.indexOf('/');
+        if (namespaceEnd <= 0) {
+            return null;
+        }
+        int typeEnd = path.indexOf('/', namespaceEnd + 1);
+        if (typeEnd < 0) {
+            return null;
+        }
+        PackFileType type = switch (path.substring(namespaceEnd + 1, typeEnd)) {
+            case "guns" -> {
+                int gunsEnd = path.indexOf('/', typeEnd + 1);
+                yield gunsEnd < 0 ? null : switch (path.substring(typeEnd + 1, gunsEnd)) {
+                    case "index" -> PackFileType.GUN_INDEX;
+                    case "data" -> PackFileType.GUN_DATA;
+                    case "display" -> PackFileType.GUN_DISPLAY;
+                    default -> null;
+                };
+            }
+            case "animations" -> path.endsWith(".bin") ? PackFileType.ANIMATION_BUFFER : PackFileType.ANIMATION;
+            case "models" -> PackFileType.MODEL;
+            case "textures" -> PackFileType.TEXTURE;
+            case "sounds" -> PackFileType.SOUND;
+            case "lang" -> PackFileType.LANGUAGE;
+            default -> null;
+        };
+        String suffix = type == null ? null : type.matchSuffix(path);
+        if (suffix == null) {
+            return null;
+        }
+        String namespace = path.substring(0, namespaceEnd);
+        int idStart = namespaceEnd + type.getDirectory().length() + 2;
+        if (idStart >= path.length() - suffix.length()) {
+            return null;
+        }
+        String id = path.substring(idStart, path.length() - suffix.length());
+        if (!type.isAllowNested() && id.indexOf('/') >= 0) {
+            return null;
+        }
+        if (!ResourceLocation.isValidNamespace(namespace) || !ResourceLocation.isValidPath(id)) {
+            GunMod.LOGGER.warn(MARKER, "Invalid resource location in pack file: {}", path);
+            return null;
+        }
+        return new Entry(type, new ResourceLocation(namespace, id), resource);
+    }
+
+    /**
+     * 已经分类的枪包文件
+     *
+     * @param type     文件类型
+     * @param id       资源 id，namespace 为枪包下一级文件夹名称，path 为去掉类型目录和后缀的路径
+     * @param resource 文件本身
+     */
+    public record Entry(PackFileType type, ResourceLocation id, PackResource resource) {
+        public PackAssetKey key() {
+            return new PackAssetKey(type, id);
+        }
+    }
+}
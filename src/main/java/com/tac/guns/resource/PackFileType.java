@@ -0,0 +1,76 @@
+package com.tac.guns.resource;
+
+import javax.annotation.Nullable;
+
+/**
+ * 枪包中的文件类型，以及它们在枪包中的位置。
+ * <p>
+ * 以 "tac/guns/display/ak47_display.json" 为例：第一级为 namespace，
+ * 之后的 {@link #getDirectory()} 决定类型，剩下的部分去掉后缀后作为资源的 id
+ */
+public enum PackFileType {
+    GUN_INDEX("guns/index", false, false, ".json"),
+    GUN_DATA("guns/data", true, false, ".json"),
+    GUN_DISPLAY("guns/display", true, false, ".json"),
+    ANIMATION("animations", true, false, ".gltf", ".glb"),
+    /**
+     * gltf 动画引用的外部二进制缓冲。没有对应的加载器，由动画加载器通过枪包按需读取，这里只用于检测变化
+     */
+    ANIMATION_BUFFER("animations", true, false, ".bin"),
+    MODEL("models", true, false, ".json"),
+    TEXTURE("textures", true, false, ".png"),
+    SOUND("sounds", true, false, ".ogg"),
+    LANGUAGE("lang", false, true, ".json");
+
+    private final String directory;
+    private final String[] suffixes;
+    /**
+     * 是否允许在该类型的文件夹中继续嵌套子文件夹
+     */
+    private final boolean allowNested;
+    /**
+     * 该类型的文件是否会被合并为一份资源，例如多个枪包的同一语言文件。
+     * 这类资源无法单独更新某个文件，只要有一个文件变化，就需要重新读取该类型的全部文件
+     */
+    private final boolean merged;
+
+    PackFileType(String directory, boolean allowNested, boolean merged, String... suffixes) {
+        this.directory = directory;
+        this.suffixes = suffixes;
+        this.allowNested = allowNested;
+        this.merged = merged;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return 路径匹配的后缀，不是该类型的文件时返回 null
+     */
+    @Nullable
+    public String matchSuffix(String path) {
+        for (String suffix : suffixes) {
+            if (path.endsWith(suffix)) {
+                return suffix;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 引用该类型文件的文件类型。被引用的文件无法确定属于哪个文件，发生变化时，引用它的类型的全部文件都需要重新读取
+     */
+    @Nullable
+    public PackFileType getReferencedBy() {
+        return this == ANIMATION_BUFFER ? ANIMATION : null;
+    }
+
+    public boolean isAllowNested() {
+        return allowNested;
+    }
+
+    public boolean isMerged() {
+        return merged;
+    }
+}
@@ -0,0 +1,165 @@
+package com.tac.guns.resource;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.tac.guns.GunMod;
+import com.tac.guns.resource.loader.IPackLoader;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipFile;
+
+/**
+ * 枪包加载流水线：
+ * <ol>
+ *     <li>扫描：{@link #scan} 在调用线程中依次打开每个枪包（每个 zip 只打开一次），构建 {@link PackFileIndex}，
+ *     并与上一次的 {@link PackSnapshot} 比较得到 {@link PackChangeSet}</li>
+ *     <li>解析：{@link #load} 把发生变化的文件作为任务提交到有界线程池，由对应类型的加载器完成 GSON、glTF、OGG 等解析</li>
+ *     <li>汇合：等待全部解析任务完成后才返回，之后再由调用者发布资源、解析 index 文件</li>
+ * </ol>
+ * 加载器需要把结果写入 {@link CommonAssetManager} 或 ClientAssetManager 的待发布缓存中，
+ * 因此必须在 load 之前调用 beginReload，在 load 之后调用 publish。
+ */
+public class PackLoadPipeline {
+    private static final Marker MARKER = MarkerManager.getMarker("PackLoadPipeline");
+    /**
+     * 解析线程的数量，给主线程留出一个核心
+     */
+    private static final int WORKER_COUNT = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 8));
+    private final Path folder;
+    private final Map<PackFileType, IPackLoader> loaders = Maps.newEnumMap(PackFileType.class);
+    private final List<ZipFile> openedZipFiles = Lists.newArrayList();
+    private final List<PackFileIndex> indexes = Lists.newArrayList();
+    private final PackSnapshot snapshot = new PackSnapshot();
+    private PackChangeSet changes;
+
+    public PackLoadPipeline(Path folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * 注册某种类型文件的加载器，没有注册加载器的文件类型会被直接跳过
+     */
+    public PackLoadPipeline addLoader(PackFileType type, IPackLoader loader) {
+        loaders.put(type, loader);
+        return this;
+    }
+
+    /**
+     * 扫描全部枪包，计算与上一次重载相比发生变化的文件
+     *
+     * @param previous 上一次重载的快照，为 null 时重载全部文件
+     * @param full     是否强制重载全部文件
+     */
+    public PackChangeSet scan(@Nullable PackSnapshot previous, boolean full) {
+        File[] files = folder.toFile().listFiles((dir, name) -> true);
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && file.getName().endsWith(".zip")) {
+                    scanZip(file);
+                }
+                if (file.isDirectory()) {
+                    scanDir(file);
+                }
+            }
+        }
+        for (PackFileIndex index : indexes) {
+            index.getAll().forEach(entries -> entries.forEach(snapshot::record));
+        }
+        changes = snapshot.diff(previous, full);
+        return changes;
+    }
+
+    /**
+     * 解析全部发生变化的文件，所有解析任务完成后返回，并关闭打开的枪包
+     */
+    public void load() {
+        ExecutorService executor = Executors.newFixedThreadPool(WORKER_COUNT,
+                new ThreadFactoryBuilder().setNameFormat("TaC-PackLoader-%d").setDaemon(true).build());
+        List<Future<?>> tasks = Lists.newArrayList();
+        try {
+            for (PackFileIndex index : indexes) {
+                submit(index, executor, tasks);
+            }
+            // 等待全部解析完成
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException exception) {
+                    GunMod.LOGGER.warn(MARKER, "Pack loading task failed", exception.getCause());
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+            // zip 文件需要等所有任务结束后才能关闭
+            for (ZipFile zipFile : openedZipFiles) {
+                try {
+                    zipFile.close();
+                } catch (IOException ioException) {
+                    ioException.printStackTrace();
+                }
+            }
+            openedZipFiles.clear();
+            indexes.clear();
+        }
+    }
+
+    /**
+     * 本次扫描得到的快照，需要保存下来供下一次重载比较
+     */
+    public PackSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private void scanZip(File file) {
+        try {
+            ZipFile zipFile = new ZipFile(file);
+            openedZipFiles.add(zipFile);
+            indexes.add(PackFileIndex.ofZip(zipFile));
+        } catch (IOException ioException) {
+            GunMod.LOGGER.warn(MARKER, "Failed to open pack: {}", file);
+            ioException.printStackTrace();
+        }
+    }
+
+    private void scanDir(File packRoot) {
+        try {
+            indexes.add(PackFileIndex.ofDir(packRoot.toPath()));
+        } catch (IOException ioException) {
+            GunMod.LOGGER.warn(MARKER, "Failed to scan pack: {}", packRoot);
+            ioException.printStackTrace();
+        }
+    }
+
+    private void submit(PackFileIndex index, ExecutorService executor, List<Future<?>> tasks) {
+        loaders.forEach((type, loader) -> {
+            for (PackFileIndex.Entry entry : index.get(type)) {
+                if (changes == null || changes.isChanged(entry.key())) {
+                    tasks.add(executor.submit(() -> dispatch(loader, entry)));
+                }
+            }
+        });
+    }
+
+    private static void dispatch(IPackLoader loader, PackFileIndex.Entry entry) {
+        try {
+            loader.load(entry.id(), entry.resource());
+        } catch (IOException | RuntimeException exception) {
+            GunMod.LOGGER.warn(MARKER, "Failed to load pack file: {}", entry.resource().getPath());
+            exception.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.tac.guns.resource;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 枪包中的单个文件。扫描阶段只记录文件的位置，真正的读取和解析交给工作线程完成。
+ * <p>
+ * path 为文件相对于枪包根目录的路径，统一使用 "/" 分隔，例如 "tac/guns/data/ak47_data.json"
+ */
+public abstract class PackResource {
+    protected final String path;
+
+    protected PackResource(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 打开文件的输入流，调用者负责关闭
+     */
+    public abstract InputStream open() throws IOException;
+
+    /**
+     * 文件的指纹，用于判断两次重载之间文件是否发生了变化，获取时不会读取文件内容
+     */
+    public abstract Fingerprint getFingerprint();
+
+    /**
+     * 读取文件的全部内容，字节序为小端
+     */
+    public ByteBuffer map() throws IOException {
+        try (InputStream stream = open()) {
+            byte[] data = stream.readAllBytes();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(data.length).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(data).flip();
+            return buffer;
+        }
+    }
+
+    /**
+     * 获取同一枪包中、相对于该文件所在目录的另一个文件
+     *
+     * @param relativePath 以 "/" 分隔的相对路径，可以包含 ".."
+     * @return 文件不存在或路径超出枪包时返回 null
+     */
+    @Nullable
+    public abstract PackResource resolve(String relativePath);
+
+    /**
+     * 把相对路径拼接到 path 所在的目录上，并去掉其中的 "." 和 ".."
+     *
+     * @return 路径超出枪包根目录时返回 null
+     */
+    @Nullable
+    protected static String resolvePath(String path, String relativePath) {
+        Deque<String> segments = new ArrayDeque<>(Arrays.asList(path.split("/")));
+        // 去掉文件名，得到所在目录
+        segments.pollLast();
+        for (String segment : relativePath.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment)) {
+                if (segments.pollLast() == null) {
+                    return null;
+                }
+            } else {
+                segments.addLast(segment);
+            }
+        }
+        return segments.isEmpty() ? null : String.join("/", segments);
+    }
+
+    /**
+     * @param source 文件所在的枪包或文件本身的路径，文件移动到其他枪包时也视为发生变化
+     * @param stamp  zip 条目的 CRC，或文件的修改时间
+     * @param size   文件大小
+     */
+    public record Fingerprint(String source, long stamp, long size) {
+    }
+
+    /**
+     * zip 格式枪包中的文件。ZipFile 本身是线程安全的，可以在多个工作线程中同时读取不同的条目
+     */
+    public static final class Zip extends PackResource {
+        private final ZipFile zipFile;
+        private final ZipEntry entry;
+
+        public Zip(ZipFile zipFile, ZipEntry entry) {
+            super(entry.getName());
+            this.zipFile = zipFile;
+            this.entry = entry;
+        }
+
+        public ZipFile getZipFile() {
+            return zipFile;
+        }
+
+        public ZipEntry getEntry() {
+            return entry;
+        }
+
+        @Override
+        public InputStream open() throws IOException {
+            return zipFile.getInputStream(entry);
+        }
+
+        @Override
+        public Fingerprint getFingerprint() {
+            return new Fingerprint(zipFile.getName(), entry.getCrc(), entry.getSize());
+        }
+
+        @Override
+        @Nullable
+        public PackResource resolve(String relativePath) {
+            String resolved = resolvePath(path, relativePath);
+            ZipEntry resolvedEntry = resolved == null ? null : zipFile.getEntry(resolved);
+            if (resolvedEntry == null || resolvedEntry.isDirectory()) {
+                return null;
+            }
+            return new Zip(zipFile, resolvedEntry);
+        }
+    }
+
+    /**
+     * 文件夹格式枪包中的文件
+     */
+    public static final class Dir extends PackResource {
+        private final Path file;
+        private final long lastModified;
+        private final long size;
+
+        public Dir(String path, Path file, long lastModified, long size) {
+            super(path);
+            this.file = file;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        @Override
+        public InputStream open() throws IOException {
+            return Files.newInputStream(file);
+        }
+
+        @Override
+        public Fingerprint getFingerprint() {
+            return new Fingerprint(file.toString(), lastModified, size);
+        }
+
+        /**
+         * 直接内存映射文件，不复制到堆中
+         */
+        @Override
+        public ByteBuffer map() throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        @Override
+        @Nullable
+        public PackResource resolve(String relativePath) {
+            String resolved = resolvePath(path, relativePath);
+            if (resolved == null) {
+                return null;
+            }
+            // path 的每一级对应 file 的一级父目录，由此得到枪包根目录
+            Path packRoot = file;
+            for (int i = path.split("/").length; i > 0 && packRoot != null; i--) {
+                packRoot = packRoot.getParent();
+            }
+            if (packRoot == null) {
+                return null;
+            }
+            Path resolvedFile = packRoot.resolve(resolved);
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(resolvedFile, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                    return null;
+                }
+                return new Dir(resolved, resolvedFile, attributes.lastModifiedTime().toMillis(), attributes.size());
+            } catch (IOException exception) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.tac.guns.resource;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import javax.annotation.Nullable;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一次重载时枪包中全部文件的指纹，用于和上一次重载的结果比较，找出发生变化的文件
+ */
+public class PackSnapshot {
+    private final Map<PackAssetKey, PackResource.Fingerprint> fingerprints = Maps.newHashMap();
+
+    public void record(PackFileIndex.Entry entry) {
+        fingerprints.put(entry.key(), entry.resource().getFingerprint());
+    }
+
+    /**
+     * 与上一次的快照比较
+     *
+     * @param previous 上一次重载的快照，为 null 时视为全部文件都发生了变化
+     * @param full     是否强制重载全部文件，此时依然会计算被删除的文件
+     */
+    public PackChangeSet diff(@Nullable PackSnapshot previous, boolean full) {
+        Set<PackAssetKey> changed = Sets.newHashSet();
+        Set<PackAssetKey> removed = Sets.newHashSet();
+        Set<PackFileType> changedTypes = EnumSet.noneOf(PackFileType.class);
+        boolean reloadAll = full || previous == null;
+        fingerprints.forEach((key, fingerprint) -> {
+            if (reloadAll || !fingerprint.equals(previous.fingerprints.get(key))) {
+                changed.add(key);
+                changedTypes.add(key.type());
+            }
+        });
+        if (previous != null) {
+            previous.fingerprints.keySet().forEach(key -> {
+                if (!fingerprints.containsKey(key)) {
+                    removed.add(key);
+                    changedTypes.add(key.type());
+                }
+            });
+        }
+        // 合并类型的资源只要有一个文件变化，就需要重新读取该类型的全部文件
+        fingerprints.keySet().forEach(key -> {
+            if (key.type().isMerged() && changedTypes.contains(key.type())) {
+                changed.add(key);
+            }
+        });
+        // 被引用的文件变化时，重新读取引用它的类型的全部文件
+        fingerprints.keySet().forEach(key -> {
+            for (PackFileType type : changedTypes) {
+                if (type.getReferencedBy() == key.type()) {
+                    changed.add(key);
+                }
+            }
+        });
+        return new PackChangeSet(reloadAll, changed, removed, changedTypes);
+    }
+}
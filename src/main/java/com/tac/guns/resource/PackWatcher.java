@@ -0,0 +1,113 @@
+package com.tac.guns.resource;
+
+import com.google.common.collect.Sets;
+import com.tac.guns.GunMod;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * 监视枪包文件夹，文件发生变化时自动重载，用于制作枪包时免去反复输入 /tac reload。
+ * <p>
+ * 短时间内连续写入的文件会被合并：收到第一个事件后，直到文件夹在 debounce 时间内不再变化，
+ * 才执行一次重载任务。重载任务在监视线程中执行，具体哪些文件发生了变化由增量重载通过文件指纹找出
+ */
+public final class PackWatcher {
+    private static final Marker MARKER = MarkerManager.getMarker("PackWatcher");
+    private static Thread THREAD;
+
+    /**
+     * 启动监视线程，重复调用不会启动多个线程
+     *
+     * @param debounceMs 文件夹保持不变多长时间后才开始重载
+     * @param reloadTask 重载任务
+     */
+    public static synchronized void start(Path folder, long debounceMs, Runnable reloadTask) {
+        if (THREAD != null) {
+            return;
+        }
+        WatchService watchService;
+        try {
+            Files.createDirectories(folder);
+            watchService = folder.getFileSystem().newWatchService();
+            registerAll(watchService, folder);
+        } catch (IOException ioException) {
+            GunMod.LOGGER.warn(MARKER, "Failed to watch gun pack folder: {}", folder);
+            ioException.printStackTrace();
+            return;
+        }
+        THREAD = new Thread(() -> watch(watchService, debounceMs, reloadTask), "TaC-PackWatcher");
+        THREAD.setDaemon(true);
+        THREAD.start();
+        GunMod.LOGGER.info(MARKER, "Watching gun pack folder: {}", folder);
+    }
+
+    private static void watch(WatchService watchService, long debounceMs, Runnable reloadTask) {
+        try (watchService) {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = Sets.newLinkedHashSet();
+                // 阻塞等待第一个事件
+                WatchKey key = watchService.take();
+                do {
+                    collect(watchService, key, changed);
+                    // 在 debounce 时间内继续收集，直到文件夹安静下来
+                    key = watchService.poll(debounceMs, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                if (changed.isEmpty()) {
+                    continue;
+                }
+                GunMod.LOGGER.info(MARKER, "Gun pack changed, reloading {} path(s)", changed.size());
+                try {
+                    reloadTask.run();
+                } catch (RuntimeException exception) {
+                    GunMod.LOGGER.warn(MARKER, "Failed to reload changed gun pack");
+                    exception.printStackTrace();
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ClosedWatchServiceException exception) {
+            GunMod.LOGGER.warn(MARKER, "Gun pack watcher stopped");
+            exception.printStackTrace();
+        }
+    }
+
+    private static void collect(WatchService watchService, WatchKey key, Set<Path> changed) {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // 事件溢出时无法知道具体的文件，直接记录整个文件夹，增量重载会通过文件指纹找出变化
+                changed.add(dir);
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            changed.add(path);
+            // 新建的文件夹也需要监视，例如解压出的新枪包
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    registerAll(watchService, path);
+                } catch (IOException ioException) {
+                    GunMod.LOGGER.warn(MARKER, "Failed to watch folder: {}", path);
+                }
+            }
+        }
+        key.reset();
+    }
+
+    private static void registerAll(WatchService watchService, Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
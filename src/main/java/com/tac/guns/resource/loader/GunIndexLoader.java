@@ -0,0 +1,25 @@
+package com.tac.guns.resource.loader;
+
+import com.tac.guns.resource.CommonAssetManager;
+import com.tac.guns.resource.CommonGunPackLoader;
+import com.tac.guns.resource.PackResource;
+import com.tac.guns.resource.pojo.GunIndexPOJO;
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * index 文件只在这里读取一次，客户端和服务端的 index 都从 CommonAssetManager 中获取
+ */
+public final class GunIndexLoader {
+    public static void load(ResourceLocation registryName, PackResource resource) throws IOException {
+        try (InputStream stream = resource.open()) {
+            // 获取枪械的定义文件
+            GunIndexPOJO indexPOJO = CommonGunPackLoader.GSON.fromJson(new InputStreamReader(stream, StandardCharsets.UTF_8), GunIndexPOJO.class);
+            CommonAssetManager.INSTANCE.putGunIndex(registryName, indexPOJO);
+        }
+    }
+}
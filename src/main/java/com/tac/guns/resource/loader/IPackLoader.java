@@ -0,0 +1,17 @@
+package com.tac.guns.resource.loader;
+
+import com.tac.guns.resource.PackResource;
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface IPackLoader {
+    /**
+     * 读取枪包中的文件，该方法会在加载线程池中被并发调用
+     *
+     * @param id       由 {@link com.tac.guns.resource.PackFileIndex} 解析出的资源 id
+     * @param resource 枪包中的文件
+     */
+    void load(ResourceLocation id, PackResource resource) throws IOException;
+}
@@ -0,0 +1,62 @@
+package com.tac.guns.resource.pojo.data;
+
+import com.google.gson.annotations.SerializedName;
+
+public class GunBulletData {
+    /**
+     * 为 true 时子弹交给批量弹道模拟处理，不再生成子弹实体
+     */
+    @SerializedName("simulated")
+    private boolean simulated = false;
+
+    @SerializedName("damage")
+    private float damage = 5;
+
+    /**
+     * 子弹速度，单位为格每 tick 。速度足够大时，子弹在开火的 tick 内就会命中，相当于 hitscan
+     */
+    @SerializedName("speed")
+    private float speed = 10;
+
+    /**
+     * 每 tick 下坠的速度，单位为格每 tick
+     */
+    @SerializedName("gravity")
+    private float gravity = 0;
+
+    /**
+     * 最多可以穿透的实体数量，0 为不穿透
+     */
+    @SerializedName("penetration")
+    private int penetration = 0;
+
+    /**
+     * 子弹存在的最长时间，单位为 tick
+     */
+    @SerializedName("life")
+    private int life = 100;
+
+    public boolean isSimulated() {
+        return simulated;
+    }
+
+    public float getDamage() {
+        return damage;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public float getGravity() {
+        return gravity;
+    }
+
+    public int getPenetration() {
+        return penetration;
+    }
+
+    public int getLife() {
+        return life;
+    }
+}
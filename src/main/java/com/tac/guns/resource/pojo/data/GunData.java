@@ -23,6 +23,9 @@ public class GunData {
     @SerializedName("fire_mode")
     private List<FireMode> fireModeSet;
 
+    @SerializedName("bullet")
+    private GunBulletData bulletData;
+
     public ResourceLocation getAmmoId() {
         return ammoId;
     }
@@ -43,6 +46,14 @@ public class GunData {
         return fireModeSet;
     }
 
+    public GunBulletData getBulletData() {
+        // 旧的枪包没有子弹参数，使用默认值
+        if (bulletData == null) {
+            bulletData = new GunBulletData();
+        }
+        return bulletData;
+    }
+
     /**
      * @return 枪械开火的间隔，单位为 ms 。
      */
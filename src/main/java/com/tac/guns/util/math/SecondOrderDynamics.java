@@ -1,26 +1,51 @@
 package com.tac.guns.util.math;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 
-public class SecondOrderDynamics {
-    public static final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(15, Thread::new);
-
-    static {
-        for (int i = 0; i < 15; i++)
-            executorService.execute(() -> {
-            });
-    }
+import java.util.Arrays;
 
-    private final float k1;
-    private final float k2;
-    private final float k3;
-
-    private float py;
-    private float pyd;
-    private float px;
+/**
+ * 二阶动力学系统，让数值平滑地跟随目标值，带有可调的阻尼和回弹。
+ * <p>
+ * 全部实例的状态以结构数组的形式集中存放，由 {@link #stepAll(float)} 在每一帧统一推进，
+ * 不再为每个实例占用一个后台线程。实例不再使用时需要调用 {@link #release()} 归还存储槽位。
+ * <p>
+ * 原来的后台线程大约每 6 毫秒积分一步 0.05 秒，系统的响应比真实时间快约 8 倍，已有的 (f, z, r) 参数都是按这个手感调出来的。
+ * 这里按真实时间累计步数，仍然以同样的步长和频率积分，响应与原来一致
+ */
+public class SecondOrderDynamics {
+    /**
+     * 单帧最长计入的真实时间，秒。卡顿后的第一帧不会让系统一步跳得太远
+     */
+    private static final float MAX_STEP = 0.1f;
+    /**
+     * 每一步积分的时间，秒
+     */
+    private static final float STEP_SECONDS = 0.05f;
+    /**
+     * 每积分一步对应的真实时间，秒
+     */
+    private static final float REAL_SECONDS_PER_STEP = 0.006f;
+    private static final Object LOCK = new Object();
+    private static final IntArrayList FREE_SLOTS = new IntArrayList();
+    private static float[] K1 = new float[16];
+    private static float[] K2 = new float[16];
+    private static float[] K3 = new float[16];
+    private static float[] PY = new float[16];
+    private static float[] PYD = new float[16];
+    private static float[] PX = new float[16];
+    private static float[] TARGET = new float[16];
+    private static boolean[] ACTIVE = new boolean[16];
+    /**
+     * 已经分配过的槽位数量，[0, SIZE) 之外的槽位从未使用过
+     */
+    private static int SIZE = 0;
+    /**
+     * 还不足一步的真实时间，秒
+     */
+    private static float PENDING_SECONDS = 0;
 
-    private float target;
+    private int slot;
 
     /**
      * @param f  Natural frequency
@@ -29,42 +54,115 @@ public class SecondOrderDynamics {
      * @param x0 Initial position
      */
     public SecondOrderDynamics(float f, float z, float r, float x0) {
-        k1 = (float) (z / (Math.PI * f));
-        k2 = (float) (1 / ((2 * Math.PI * f) * (2 * Math.PI * f)));
-        k3 = (float) (r * z / (2 * Math.PI * f));
+        synchronized (LOCK) {
+            slot = allocate();
+            K1[slot] = (float) (z / (Math.PI * f));
+            float k1 = K1[slot];
+            float k2 = (float) (1 / ((2 * Math.PI * f) * (2 * Math.PI * f)));
+            // 保证固定步长的积分稳定
+            K2[slot] = Math.max(k2, Math.max(STEP_SECONDS * STEP_SECONDS / 2 + STEP_SECONDS * k1 / 2, STEP_SECONDS * k1));
+            K3[slot] = (float) (r * z / (2 * Math.PI * f));
+            PY[slot] = PX[slot] = TARGET[slot] = x0;
+            PYD[slot] = 0;
+            ACTIVE[slot] = true;
+        }
+    }
 
-        py = px = x0;
-        pyd = 0;
+    /**
+     * 推进全部实例，每一帧在渲染线程调用一次
+     *
+     * @param deltaSeconds 距离上一帧的真实时间，秒
+     */
+    public static void stepAll(float deltaSeconds) {
+        if (deltaSeconds <= 0) {
+            return;
+        }
+        synchronized (LOCK) {
+            PENDING_SECONDS += Math.min(deltaSeconds, MAX_STEP);
+            int steps = (int) (PENDING_SECONDS / REAL_SECONDS_PER_STEP);
+            PENDING_SECONDS -= steps * REAL_SECONDS_PER_STEP;
+            for (int step = 0; step < steps; step++) {
+                for (int i = 0; i < SIZE; i++) {
+                    if (ACTIVE[i]) {
+                        step(i);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void step(int i) {
+        float t = STEP_SECONDS;
+        float target = TARGET[i];
+        float xd = (target - PX[i]) / t;
+        float y = PY[i] + t * PYD[i];
+        PYD[i] = PYD[i] + t * (PX[i] + K3[i] * xd - PY[i] - K1[i] * PYD[i]) / K2[i];
+        PX[i] = target;
+        PY[i] = y;
+    }
 
-        target = x0;
+    /**
+     * 设置新的目标值
+     *
+     * @return 当前跟随的数值
+     */
+    public float update(float x) {
+        synchronized (LOCK) {
+            checkAlive();
+            TARGET[slot] = x;
+            return output(slot);
+        }
+    }
 
-        executorService.execute(this::update);
+    public float get() {
+        synchronized (LOCK) {
+            checkAlive();
+            return output(slot);
+        }
     }
 
     /**
-     * @param T abandoned.
-     * @return processed y value
+     * 归还存储槽位，之后不能再使用这个实例。重复调用没有影响
      */
-    public float update(float T, float x) {
-        target = x;
-        return py + 0.05f * pyd;
+    public void release() {
+        synchronized (LOCK) {
+            if (slot < 0) {
+                return;
+            }
+            ACTIVE[slot] = false;
+            FREE_SLOTS.add(slot);
+            slot = -1;
+        }
     }
 
-    private void update() {
-        while (true) {
-            float T = 0.05f;
-            float xd = (target - px) / T;
-            float y = py + T * pyd;
+    /**
+     * 向前预测一步的数值，与原来的实现相同
+     */
+    private static float output(int slot) {
+        return PY[slot] + STEP_SECONDS * PYD[slot];
+    }
 
-            pyd = pyd + T * (px + k3 * xd - py - k1 * pyd) / k2;
-            px = target;
-            py = y;
+    private void checkAlive() {
+        if (slot < 0) {
+            throw new IllegalStateException("SecondOrderDynamics has been released");
+        }
+    }
 
-            try {
-                Thread.sleep(6);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+    private static int allocate() {
+        if (!FREE_SLOTS.isEmpty()) {
+            return FREE_SLOTS.popInt();
+        }
+        if (SIZE == ACTIVE.length) {
+            int capacity = SIZE * 2;
+            K1 = Arrays.copyOf(K1, capacity);
+            K2 = Arrays.copyOf(K2, capacity);
+            K3 = Arrays.copyOf(K3, capacity);
+            PY = Arrays.copyOf(PY, capacity);
+            PYD = Arrays.copyOf(PYD, capacity);
+            PX = Arrays.copyOf(PX, capacity);
+            TARGET = Arrays.copyOf(TARGET, capacity);
+            ACTIVE = Arrays.copyOf(ACTIVE, capacity);
         }
+        return SIZE++;
     }
 }
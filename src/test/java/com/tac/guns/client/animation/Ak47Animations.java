@@ -0,0 +1,31 @@
+package com.tac.guns.client.animation;
+
+import com.google.gson.Gson;
+import com.tac.guns.client.animation.gltf.GltfStreamReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Decodes the animations of the default AK-47 gun pack for tests and benchmarks
+ */
+final class Ak47Animations {
+    private static final String PATH = "/assets/tac/custom/tac_default_gun/tac/animations/ak47.gltf";
+
+    private Ak47Animations() {
+    }
+
+    /**
+     * @return Newly decoded prototypes, so callers are free to sample and modify them
+     */
+    static List<ObjectAnimation> load() {
+        try (InputStream stream = Objects.requireNonNull(Ak47Animations.class.getResourceAsStream(PATH), PATH)) {
+            return Animations.createPrototypesFromGltf(GltfStreamReader.read(stream, new Gson()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.tac.guns.client.animation;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnimationControllerAllocationTest {
+    private static final int WARMUP_UPDATES = 20_000;
+    private static final int MEASURED_UPDATES = 10_000;
+
+    @Test
+    void updateDoesNotAllocateOnceWarmedUp() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean, "Thread allocation counter is not available");
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assumptions.assumeTrue(allocationBean.isThreadAllocatedMemorySupported(), "Thread allocation counter is not supported");
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        List<ObjectAnimation> prototypes = Ak47Animations.load();
+        for (ObjectAnimation prototype : prototypes) {
+            AnimationController controller = Animations.createController(prototypes, CopyingListener::new);
+            controller.runAnimation(0, prototype.name, ObjectAnimation.PlayType.LOOP, 0);
+            for (int i = 0; i < WARMUP_UPDATES; i++) {
+                controller.update();
+            }
+            long before = allocationBean.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < MEASURED_UPDATES; i++) {
+                controller.update();
+            }
+            long allocated = allocationBean.getCurrentThreadAllocatedBytes() - before;
+            // Any allocation per update would be at least one object header per call
+            assertTrue(allocated < MEASURED_UPDATES, () -> prototype.name + " allocated " + allocated + " bytes in " + MEASURED_UPDATES + " updates");
+        }
+    }
+
+    /**
+     * Copies the values like the model listeners do, without keeping a reference to the reused buffer
+     */
+    private static final class CopyingListener implements AnimationListener {
+        private final ObjectAnimationChannel.ChannelType type;
+        private final float[] values;
+
+        private CopyingListener(String nodeName, ObjectAnimationChannel.ChannelType type) {
+            this.type = type;
+            this.values = new float[type == ObjectAnimationChannel.ChannelType.ROTATION ? 4 : 3];
+        }
+
+        @Override
+        public void update(float[] values) {
+            System.arraycopy(values, 0, this.values, 0, this.values.length);
+        }
+
+        @Override
+        public float[] recover() {
+            return values;
+        }
+
+        @Override
+        public ObjectAnimationChannel.ChannelType getType() {
+            return type;
+        }
+    }
+}
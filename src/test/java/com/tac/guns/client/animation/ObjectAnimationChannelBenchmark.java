@@ -0,0 +1,86 @@
+package com.tac.guns.client.animation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cursor search of {@link ObjectAnimationChannel} with a plain binary search,
+ * sampling every channel of the default AK-47 animations at 60 frames per second like playback does.
+ * Run with {@code gradlew jmh --args="ObjectAnimationChannelBenchmark"}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectAnimationChannelBenchmark {
+    private static final float FRAME_S = 1 / 60f;
+
+    private ObjectAnimationChannel[] channels;
+    private float[][] results;
+    private float timeS;
+    private float endS;
+
+    @Setup
+    public void setup() {
+        List<ObjectAnimationChannel> list = new ArrayList<>();
+        for (ObjectAnimation animation : Ak47Animations.load()) {
+            animation.getChannels().values().forEach(list::addAll);
+        }
+        channels = list.toArray(new ObjectAnimationChannel[0]);
+        results = new float[channels.length][];
+        for (int i = 0; i < channels.length; i++) {
+            results[i] = new float[channels[i].getWidth()];
+            endS = Math.max(endS, channels[i].getEndTimeS());
+        }
+    }
+
+    @Benchmark
+    public void cursorIndex(Blackhole blackhole) {
+        float time = nextFrame();
+        for (ObjectAnimationChannel channel : channels) {
+            blackhole.consume(channel.computeIndex(time));
+        }
+    }
+
+    @Benchmark
+    public void binarySearchIndex(Blackhole blackhole) {
+        float time = nextFrame();
+        for (ObjectAnimationChannel channel : channels) {
+            blackhole.consume(ObjectAnimationChannelCursorTest.binarySearchIndex(channel.content.keyframeTimeS, time));
+        }
+    }
+
+    @Benchmark
+    public void sampleAll(Blackhole blackhole) {
+        float time = nextFrame();
+        for (int i = 0; i < channels.length; i++) {
+            blackhole.consume(channels[i].getResult(time, results[i]));
+        }
+    }
+
+    /**
+     * Advance by one frame and loop back to the start, so the cursor also sees the backward jump of a looping animation
+     */
+    private float nextFrame() {
+        timeS += FRAME_S;
+        if (timeS > endS) {
+            timeS = 0;
+        }
+        return timeS;
+    }
+}
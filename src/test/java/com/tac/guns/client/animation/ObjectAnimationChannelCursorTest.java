@@ -0,0 +1,73 @@
+package com.tac.guns.client.animation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ObjectAnimationChannelCursorTest {
+    private static final float FRAME_S = 1 / 60f;
+    private static final int RANDOM_SAMPLES = 2_000;
+
+    @Test
+    void monotonicSamplingMatchesBinarySearch() {
+        for (ObjectAnimationChannel channel : channels()) {
+            float endS = channel.getEndTimeS();
+            for (float timeS = -FRAME_S; timeS <= endS + FRAME_S; timeS += FRAME_S) {
+                assertIndex(channel, timeS);
+            }
+            // Land exactly on every key frame as well
+            for (float timeS : channel.content.keyframeTimeS) {
+                assertIndex(channel, timeS);
+            }
+        }
+    }
+
+    @Test
+    void backwardJumpsMatchBinarySearch() {
+        Random random = new Random(24);
+        for (ObjectAnimationChannel channel : channels()) {
+            float endS = channel.getEndTimeS();
+            float timeS = 0;
+            for (int i = 0; i < RANDOM_SAMPLES; i++) {
+                // Mostly small forward steps like playback, with loops, seeks and transitions jumping back or far ahead
+                switch (random.nextInt(4)) {
+                    case 0 -> timeS -= random.nextFloat() * endS;
+                    case 1 -> timeS = random.nextFloat() * (endS + 2 * FRAME_S) - FRAME_S;
+                    default -> timeS += random.nextFloat() * 4 * FRAME_S;
+                }
+                if (timeS > endS + FRAME_S) {
+                    timeS = 0;
+                }
+                assertIndex(channel, timeS);
+            }
+        }
+    }
+
+    private static void assertIndex(ObjectAnimationChannel channel, float timeS) {
+        assertEquals(binarySearchIndex(channel.content.keyframeTimeS, timeS), channel.computeIndex(timeS),
+                () -> channel.node + " " + channel.type + " at " + timeS);
+    }
+
+    /**
+     * The index of the key frame at or before the time, found without the cursor
+     */
+    static int binarySearchIndex(float[] times, float timeS) {
+        int index = Arrays.binarySearch(times, timeS);
+        return index < 0 ? Math.max(0, -index - 2) : index;
+    }
+
+    private static List<ObjectAnimationChannel> channels() {
+        List<ObjectAnimationChannel> channels = new ArrayList<>();
+        for (ObjectAnimation animation : Ak47Animations.load()) {
+            animation.getChannels().values().forEach(channels::addAll);
+        }
+        assertFalse(channels.isEmpty());
+        return channels;
+    }
+}